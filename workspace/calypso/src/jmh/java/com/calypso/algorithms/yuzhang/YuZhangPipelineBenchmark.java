@@ -0,0 +1,97 @@
+package com.calypso.algorithms.yuzhang;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.calypso.benchmarks.SyntheticPools;
+import com.calypso.uniswap.UniswapPool;
+
+// the stages of YuZhangMethodOptmized.findOpportunities, in its own package
+// so buildG, buildL and MBF_Phase_I can be timed one by one
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class YuZhangPipelineBenchmark {
+
+	// pools changed per block in the warm search
+	private static final int CHANGED_POOLS = 50;
+
+	@Param({"1000", "10000", "50000"})
+	public int pools;
+
+	private UniswapPool[] markets;
+	private Token hub;
+
+	private YuZhangMethodOptmized searcher;
+	private Random random = new Random(7);
+
+	@Setup
+	public void setup() {
+
+		markets = SyntheticPools.generate(pools, 42);
+
+		hub = new Token(SyntheticPools.tokenAddress(0));
+
+		searcher = new YuZhangMethodOptmized();
+
+		// G, L and the solver of the last search are there for the stages
+		searcher.findOpportunities(markets, hub.getTokenAddress(), markets[0].getMarketAddress());
+	}
+
+	@Benchmark
+	public void buildG() {
+		searcher.buildG(markets);
+	}
+
+	@Benchmark
+	public void buildGAndL() {
+		searcher.buildG(markets);
+		searcher.putZeroEdge(hub);
+		searcher.buildL();
+	}
+
+	@Benchmark
+	public void phaseI() {
+		searcher.buildG(markets);
+		searcher.putZeroEdge(hub);
+		searcher.buildL();
+		searcher.MBF_Phase_I(hub);
+	}
+
+	@Benchmark
+	public Object findOpportunities() {
+		return searcher.findOpportunities(markets, hub.getTokenAddress(), markets[0].getMarketAddress());
+	}
+
+	// a block: a few pools move, the last distances are the warm start
+	@Benchmark
+	public Object updateAndSearch() {
+
+		for (int contPool = 0; contPool < CHANGED_POOLS; contPool++) {
+
+			UniswapPool market = markets[random.nextInt(markets.length)];
+
+			// swap the reserves back and forth, so G stays the same shape run after run
+			searcher.updatePool(market.getMarketAddress(), market.getBalance1(), market.getBalance0());
+		}
+
+		return searcher.findOpportunities(hub.getTokenAddress(), markets[0].getMarketAddress());
+	}
+
+}
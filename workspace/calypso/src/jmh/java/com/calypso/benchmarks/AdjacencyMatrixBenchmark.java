@@ -0,0 +1,72 @@
+package com.calypso.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.calypso.algorithms.yuzhang.TokenPairInterner;
+import com.calypso.general.datastructures.LineGraph;
+import com.calypso.general.datastructures.TokenGraph;
+import com.calypso.general.datastructures.williamfisset.BellmanFordSolver;
+import com.calypso.general.datastructures.williamfisset.BellmanFordSolverType;
+import com.calypso.uniswap.UniswapPool;
+
+// the dense solver, n^2 doubles, so only the small graph
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class AdjacencyMatrixBenchmark {
+
+	@Param({"1000"})
+	public int pools;
+
+	private LineGraph L;
+
+	@Setup
+	public void setup() {
+
+		UniswapPool[] markets = SyntheticPools.generate(pools, 42);
+
+		TokenPairInterner interner = new TokenPairInterner(pools);
+
+		TokenGraph G = new TokenGraph(pools, 2 * pools);
+
+		for (UniswapPool market : markets) {
+
+			int i = interner.internToken(market.getToken0());
+			int j = interner.internToken(market.getToken1());
+
+			G.addEdge(i, j, market.getWeight01());
+			G.addEdge(j, i, market.getWeight10());
+		}
+
+		G.compress();
+
+		L = new LineGraph(G, interner.indexOfToken(SyntheticPools.tokenAddress(0)));
+	}
+
+	@Benchmark
+	public double[] solve() {
+
+		BellmanFordSolver solver = BellmanFordSolverType.ADJACENCY_MATRIX.newSolver(L);
+
+		solver.solve();
+
+		return solver.getShortestPaths();
+	}
+
+}
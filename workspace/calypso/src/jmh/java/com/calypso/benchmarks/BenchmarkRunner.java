@@ -0,0 +1,28 @@
+package com.calypso.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public class BenchmarkRunner {
+
+	// java -jar target/benchmarks.jar [JMH options], e.g. SolverBenchmark -p pools=10000
+	// the GC profiler is always on, so every suite reports its allocation rate (gc.alloc.rate.norm)
+
+	public BenchmarkRunner() {
+
+	}
+
+	public static void main(String[] args) throws Exception {
+
+		Options options = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class)
+				.build();
+
+		new Runner(options).run();
+	}
+
+}
@@ -0,0 +1,80 @@
+package com.calypso.benchmarks;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.calypso.uniswap.FilePoolSource;
+import com.calypso.uniswap.UniswapMarketsFileDeparser;
+import com.calypso.uniswap.UniswapMarketsParallelParser;
+
+// reading a parsedMarkets<BLOCK>.mkts snapshot written from the synthetic pools
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class ParsingBenchmark {
+
+	@Param({"1000", "10000", "50000"})
+	public int pools;
+
+	private Path snapshot;
+
+	private byte[] json;
+
+	@Setup
+	public void setup() throws Exception {
+
+		snapshot = Files.createTempFile("parsedMarkets", ".mkts");
+
+		SyntheticPools.writeMkts(SyntheticPools.generate(pools, 42), snapshot);
+
+		json = Files.readAllBytes(snapshot);
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		Files.deleteIfExists(snapshot);
+	}
+
+	@Benchmark
+	public Object initFromFile() throws Exception {
+		return UniswapMarketsFileDeparser.initFromFile(snapshot.toString());
+	}
+
+	// the pools are only streamed, no map is kept
+	@Benchmark
+	public void initFromFileToSink(Blackhole blackhole) throws Exception {
+		UniswapMarketsFileDeparser.initFromFile(snapshot.toString(), blackhole::consume);
+	}
+
+	// mapped and decoded in parallel chunks, into the interned list
+	@Benchmark
+	public Object poolSource() throws Exception {
+		return new FilePoolSource(snapshot.toString()).load();
+	}
+
+	// parallel chunks of the bytes already in memory, into the interned list
+	@Benchmark
+	public Object parallelParser() throws Exception {
+		return new UniswapMarketsParallelParser(json).parse();
+	}
+
+}
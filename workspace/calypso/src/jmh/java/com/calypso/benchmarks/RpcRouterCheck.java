@@ -0,0 +1,252 @@
+package com.calypso.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.calypso.blockchain.api.RpcRouter;
+import com.calypso.blockchain.api.RpcRouter.Endpoint;
+import com.sun.net.httpserver.HttpServer;
+
+public class RpcRouterCheck {
+
+	// the RpcRouter against stub nodes on the loopback, no real node needed.
+	// java -cp target/benchmarks.jar com.calypso.benchmarks.RpcRouterCheck
+	//
+	// checks the latency order, failover, cooldown and recovery, that a transaction is
+	// only sent once unless the connection was never made, that a rate limit inside a
+	// 200 fails over, and that a 4xx is no sample. throws AssertionError on the first miss
+
+	private static final String BLOCK_NUMBER = "{\"jsonrpc\":\"2.0\",\"method\":\"eth_blockNumber\",\"params\":[],\"id\":1}";
+	private static final String SEND_RAW = "{\"jsonrpc\":\"2.0\",\"method\":\"eth_sendRawTransaction\",\"params\":[\"0x00\"],\"id\":1}";
+
+	private static final String RESULT = "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":\"0x10\"}";
+	private static final String RATE_LIMITED = "{\"jsonrpc\":\"2.0\",\"id\":1,\"error\":{\"code\":-32005,\"message\":\"request rate exceeded\"}}";
+
+	// answers after delayMillis, with status or http 503 at failRate
+	static class StubNode {
+
+		final HttpServer server;
+
+		volatile int delayMillis;
+		volatile double failRate;
+		volatile int status = 200;
+		volatile String body = RESULT;
+
+		final AtomicLong hits = new AtomicLong();
+
+		StubNode(int delayMillis, double failRate) throws IOException {
+
+			this.delayMillis = delayMillis;
+			this.failRate = failRate;
+
+			server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+
+			server.createContext("/", exchange -> {
+
+				exchange.getRequestBody().readAllBytes();
+
+				hits.incrementAndGet();
+
+				try {
+					Thread.sleep(this.delayMillis);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+
+				int answer = (ThreadLocalRandom.current().nextDouble() < this.failRate) ? 503 : status;
+
+				if (answer != 200) {
+					exchange.sendResponseHeaders(answer, -1);
+				} else {
+					byte[] bytes = this.body.getBytes(StandardCharsets.UTF_8);
+					exchange.getResponseHeaders().set("Content-Type", "application/json");
+					exchange.sendResponseHeaders(200, bytes.length);
+					try (OutputStream out = exchange.getResponseBody()) {
+						out.write(bytes);
+					}
+				}
+
+				exchange.close();
+			});
+
+			server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+			server.start();
+		}
+
+		String url() {
+			return "http://127.0.0.1:" + server.getAddress().getPort();
+		}
+
+		void stop() {
+			server.stop(0);
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+
+		// small answers on the loopback otherwise wait for the delayed ack
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+
+		routing();
+		writes();
+		answers();
+
+		System.out.println("RpcRouter checks passed");
+	}
+
+	// fast, slow and flaky: the fast one takes the traffic, goes down, cools, comes back
+	private static void routing() throws Exception {
+
+		StubNode fast = new StubNode(2, 0);
+		StubNode slow = new StubNode(10, 0);
+		StubNode flaky = new StubNode(1, 0.6);
+
+		Endpoint fastEndpoint = new Endpoint("fast", fast.url());
+		Endpoint slowEndpoint = new Endpoint("slow", slow.url());
+		Endpoint flakyEndpoint = new Endpoint("flaky", flaky.url());
+
+		RpcRouter router = new RpcRouter(List.of(fastEndpoint, slowEndpoint, flakyEndpoint));
+
+		try {
+
+			send(router, BLOCK_NUMBER, 400);
+
+			System.out.println("All up:");
+			System.out.print(router.stats());
+
+			check(fastEndpoint.getP50Nanos() < slowEndpoint.getP50Nanos(), "fast p50 below slow p50");
+			check(fastEndpoint.getRequests() > slowEndpoint.getRequests() + flakyEndpoint.getRequests(), "fast takes most requests");
+			check(flakyEndpoint.getErrorRate() > 0.3, "flaky errors counted");
+
+			// down: every send still answered, the fast one only tried again after its cooldowns
+			fast.status = 503;
+
+			long fastBefore = fast.hits.get();
+
+			send(router, BLOCK_NUMBER, 200);
+
+			System.out.println("Fast one down:");
+			System.out.print(router.stats());
+
+			check(fast.hits.get() - fastBefore < 20, "fast cooled down, got " + (fast.hits.get() - fastBefore) + " of 200");
+
+			// up again: once its cooldown ends it takes the traffic back
+			fast.status = 200;
+
+			long deadline = System.currentTimeMillis() + RpcRouter.MAX_COOLDOWN_MILLIS;
+
+			while (!fastEndpoint.isHealthy(System.currentTimeMillis()) && System.currentTimeMillis() < deadline) {
+				Thread.sleep(50);
+			}
+
+			fastBefore = fast.hits.get();
+
+			send(router, BLOCK_NUMBER, 100);
+
+			System.out.println("Fast one back:");
+			System.out.print(router.stats());
+
+			check(fast.hits.get() - fastBefore > 50, "fast back in front, got " + (fast.hits.get() - fastBefore) + " of 100");
+
+		} finally {
+			fast.stop();
+			slow.stop();
+			flaky.stop();
+		}
+	}
+
+	// a transaction goes to a single node unless the connection was never made
+	private static void writes() throws Exception {
+
+		StubNode first = new StubNode(0, 0);
+		StubNode second = new StubNode(0, 0);
+
+		first.status = 503;
+
+		try {
+
+			RpcRouter router = new RpcRouter(List.of(new Endpoint("first", first.url()), new Endpoint("second", second.url())));
+
+			check(failed(router, SEND_RAW), "a 503 on a transaction goes back to the caller");
+			check(first.hits.get() + second.hits.get() == 1, "the transaction reached one node only");
+
+			// reads still fail over
+			check(!failed(router, BLOCK_NUMBER), "a read fails over past the 503");
+
+			// nobody listens on a stopped node, the payload cannot have arrived
+			StubNode closed = new StubNode(0, 0);
+			closed.stop();
+
+			long before = second.hits.get();
+
+			RpcRouter refused = new RpcRouter(List.of(new Endpoint("closed", closed.url()), new Endpoint("second", second.url())));
+
+			check(!failed(refused, SEND_RAW), "a refused connection fails over a transaction");
+			check(second.hits.get() - before == 1, "the transaction reached the second node once");
+
+		} finally {
+			first.stop();
+			second.stop();
+		}
+	}
+
+	// a rate limit in a 200 is an error that fails over, a 4xx is no sample
+	private static void answers() throws Exception {
+
+		StubNode limited = new StubNode(0, 0);
+		StubNode good = new StubNode(0, 0);
+		StubNode wrong = new StubNode(0, 0);
+
+		limited.body = RATE_LIMITED;
+		wrong.status = 400;
+
+		try {
+
+			Endpoint limitedEndpoint = new Endpoint("limited", limited.url());
+
+			RpcRouter router = new RpcRouter(List.of(limitedEndpoint, new Endpoint("good", good.url())));
+
+			check(router.send(BLOCK_NUMBER).equals(RESULT), "the rate limited answer failed over");
+			check(limitedEndpoint.getErrorRate() == 1.0, "the rate limit counted as an error");
+
+			Endpoint wrongEndpoint = new Endpoint("wrong", wrong.url());
+
+			RpcRouter bad = new RpcRouter(List.of(wrongEndpoint, new Endpoint("good", good.url())));
+
+			check(failed(bad, BLOCK_NUMBER), "a 400 goes back to the caller");
+			check(wrongEndpoint.getSamples() == 0, "a 400 is no latency sample");
+
+		} finally {
+			limited.stop();
+			good.stop();
+			wrong.stop();
+		}
+	}
+
+	private static void send(RpcRouter router, String payload, int requests) throws IOException {
+		for (int request = 0; request < requests; request++) {
+			router.send(payload);
+		}
+	}
+
+	private static boolean failed(RpcRouter router, String payload) {
+		try {
+			router.send(payload);
+			return false;
+		} catch (IOException e) {
+			return true;
+		}
+	}
+
+	private static void check(boolean condition, String what) {
+		if (!condition) throw new AssertionError("RpcRouter: " + what);
+	}
+
+}
@@ -0,0 +1,122 @@
+package com.calypso.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.calypso.algorithms.yuzhang.TokenPairInterner;
+import com.calypso.general.algorithms.CycleEnumerator;
+import com.calypso.general.datastructures.LineGraph;
+import com.calypso.general.datastructures.TokenGraph;
+import com.calypso.general.datastructures.williamfisset.BellmanFordEdgeList;
+import com.calypso.general.datastructures.williamfisset.BellmanFordHopBounded;
+import com.calypso.general.datastructures.williamfisset.BellmanFordSolver;
+import com.calypso.general.datastructures.williamfisset.BellmanFordSolverType;
+import com.calypso.uniswap.UniswapPool;
+
+// every solver on the same G, from the biggest hub token.
+// the adjacency matrix needs n^2 doubles, it has its own suite on the small graph
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class SolverBenchmark {
+
+	@Param({"1000", "10000", "50000"})
+	public int pools;
+
+	@Param({"LINE_GRAPH", "EDGE_LIST", "HOP_BOUNDED_4", "HOP_BOUNDED_8", "ENUMERATOR_4"})
+	public String solver;
+
+	private TokenGraph G;
+	private LineGraph L;
+	private int hub;
+
+	@Setup
+	public void setup() {
+
+		UniswapPool[] markets = SyntheticPools.generate(pools, 42);
+
+		TokenPairInterner interner = new TokenPairInterner(pools);
+
+		G = new TokenGraph(pools, 2 * pools);
+
+		for (UniswapPool market : markets) {
+
+			int i = interner.internToken(market.getToken0());
+			int j = interner.internToken(market.getToken1());
+
+			G.addEdge(i, j, market.getWeight01());
+			G.addEdge(j, i, market.getWeight10());
+		}
+
+		G.compress();
+
+		hub = interner.indexOfToken(SyntheticPools.tokenAddress(0));
+
+		L = new LineGraph(G, hub);
+	}
+
+	@Benchmark
+	public Object solve() {
+
+		switch (solver) {
+
+		case "LINE_GRAPH": {
+			BellmanFordSolver lineGraph = BellmanFordSolverType.EDGE_LIST.newSolver(L);
+			lineGraph.solve();
+			return lineGraph.getShortestPaths();
+		}
+
+		case "EDGE_LIST": {
+			// the L edges written out first, as the matrix and edge list solvers need
+			BellmanFordSolver edgeList = materialized();
+			edgeList.solve();
+			return edgeList.getShortestPaths();
+		}
+
+		case "HOP_BOUNDED_4":
+		case "HOP_BOUNDED_8": {
+			BellmanFordHopBounded hopBounded = new BellmanFordHopBounded(L, solver.endsWith("4") ? 4 : 8, true);
+			hopBounded.solve();
+			return hopBounded.getLayer(hopBounded.getMaxHops());
+		}
+
+		case "ENUMERATOR_4": {
+			CycleEnumerator enumerator = new CycleEnumerator(G, 4);
+			enumerator.setMaxWeight(0.0);
+			return enumerator.enumerate(hub, (edges, length, weight) -> { });
+		}
+
+		default:
+			throw new IllegalArgumentException("Unknown solver " + solver);
+		}
+	}
+
+	private BellmanFordSolver materialized() {
+
+		int m = (int) L.edgeCount();
+
+		int[] from = new int[m];
+		int[] to = new int[m];
+		double[] weights = new double[m];
+
+		L.toEdgeList(from, to, weights);
+
+		return new BellmanFordEdgeList(L.startNode(), L.nodeCount(), from, to, weights, m);
+	}
+
+}
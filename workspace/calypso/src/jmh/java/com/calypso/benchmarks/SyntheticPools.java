@@ -0,0 +1,129 @@
+package com.calypso.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import com.calypso.uniswap.UniswapPool;
+
+public class SyntheticPools {
+
+	// pool lists shaped like the Uniswap ones: a few hub tokens (WETH, USDC, USDT...)
+	// sit in most pools, a long tail of tokens sits in one or two.
+	// both tokens of a pool are drawn by rank from a Zipf law, P(rank r) ~ 1 / r.
+	// every token has a price and the reserves follow it within NOISE, below the fee, so as on chain
+	// cycles rarely pay and Bellman-Ford stops early instead of running n - 1 passes
+
+	private static final double NOISE = 0.01;
+
+	public SyntheticPools() {
+
+	}
+
+	public static UniswapPool[] generate(int poolCount, long seed) {
+
+		Random random = new Random(seed);
+
+		int tokenCount = Math.max(8, poolCount * 3 / 4);
+
+		double[] cumulative = zipf(tokenCount);
+
+		// log-normal prices, in wei per unit of value
+		double[] prices = new double[tokenCount];
+
+		for (int rank = 0; rank < tokenCount; rank++) {
+			prices[rank] = Math.exp(41.4 + 3.0 * random.nextGaussian());
+		}
+
+		UniswapPool[] pools = new UniswapPool[poolCount];
+
+		for (int contPool = 0; contPool < poolCount; contPool++) {
+
+			int token0 = draw(cumulative, random);
+			int token1;
+
+			do {
+				token1 = draw(cumulative, random);
+			} while (token1 == token0);
+
+			// 10^3 to 10^7 units of value on each side
+			double liquidity = Math.pow(10, 3 + 4 * random.nextDouble());
+			double noise = 1 + NOISE * (2 * random.nextDouble() - 1);
+
+			pools[contPool] = new UniswapPool(marketAddress(contPool),
+					tokenAddress(token0), reserves(liquidity * prices[token0]),
+					tokenAddress(token1), reserves(liquidity * prices[token1] * noise));
+		}
+
+		return pools;
+	}
+
+	// rank 0 is the biggest hub
+	public static String tokenAddress(int rank) {
+		return String.format("0x%040x", rank + 1);
+	}
+
+	public static String marketAddress(int pool) {
+		return String.format("0x%040x", (1L << 48) + pool);
+	}
+
+	// the same JSON as the parsedMarkets<BLOCK>.mkts files
+	public static void writeMkts(UniswapPool[] pools, Path file) throws IOException {
+
+		try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+
+			writer.write("[");
+
+			for (int contPool = 0; contPool < pools.length; contPool++) {
+
+				UniswapPool pool = pools[contPool];
+
+				if (contPool > 0) writer.write(" , ");
+
+				writer.write("{  \"marketAddress\": \"" + pool.getMarketAddress() + "\" , " +
+						"\"token0\": \"" + pool.getToken0() + "\" ,  " +
+						"\"balance0\": \"" + pool.getBalance0() + "\" , " +
+						"\"token1\": \"" + pool.getToken1() + "\" , " +
+						"\"balance1\": \"" + pool.getBalance1() + "\" }");
+			}
+
+			writer.write("]");
+			writer.newLine();
+		}
+	}
+
+	private static double[] zipf(int tokenCount) {
+
+		double[] cumulative = new double[tokenCount];
+
+		double sum = 0.0;
+
+		for (int rank = 0; rank < tokenCount; rank++) {
+			sum += 1.0 / (rank + 1);
+			cumulative[rank] = sum;
+		}
+
+		for (int rank = 0; rank < tokenCount; rank++) {
+			cumulative[rank] /= sum;
+		}
+
+		return cumulative;
+	}
+
+	private static int draw(double[] cumulative, Random random) {
+
+		int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+
+		return Math.min((rank < 0) ? -rank - 1 : rank, cumulative.length - 1);
+	}
+
+	private static String reserves(double wei) {
+		return new BigDecimal(Math.max(1.0, wei)).toBigInteger().toString();
+	}
+
+}
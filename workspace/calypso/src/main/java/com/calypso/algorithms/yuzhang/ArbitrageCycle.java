@@ -0,0 +1,145 @@
+package com.calypso.algorithms.yuzhang;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.calypso.general.JsonText;
+
+public class ArbitrageCycle {
+
+	// a cycle of pools found by the YuZhang method, starting and ending at the base token
+
+	// edges of G, pool p -> 2p (token0 -> token1), 2p + 1 (token1 -> token0)
+	private int[] edges;
+
+	private List<String> poolAddresses;
+
+	// base token, ..., base token, one more than the pools
+	private List<Token> tokenPath;
+
+	// sum of -log(0.97 * Ri/Rj) along the cycle, negative when it pays
+	private double logWeight;
+
+	// Double[0] -> Delta Profit, Double[1] -> delta %
+	private Double[] deltaProfitability;
+
+	public ArbitrageCycle(int[] edges, List<String> poolAddresses, List<Token> tokenPath,
+						  double logWeight, Double[] deltaProfitability) {
+
+		this.edges = edges;
+		this.poolAddresses = Collections.unmodifiableList(poolAddresses);
+		this.tokenPath = Collections.unmodifiableList(tokenPath);
+		this.logWeight = logWeight;
+		this.deltaProfitability = deltaProfitability;
+	}
+
+	public int[] getEdges() {
+		return edges.clone();
+	}
+
+	public List<String> getPoolAddresses() {
+		return poolAddresses;
+	}
+
+	public List<Token> getTokenPath() {
+		return tokenPath;
+	}
+
+	public Token getBaseToken() {
+		return tokenPath.get(0);
+	}
+
+	public double getLogWeight() {
+		return logWeight;
+	}
+
+	public int getHops() {
+		return edges.length;
+	}
+
+	public Double[] getDeltaProfitability() {
+		return deltaProfitability;
+	}
+
+	public boolean isProfitable() {
+		return logWeight < 0;
+	}
+
+	// the same cycle seen from another base token is a rotation of the edges,
+	// compare them starting at the smallest edge
+	private int[] canonicalEdges() {
+
+		int first = 0;
+
+		for (int contEdge = 1; contEdge < edges.length; contEdge++) {
+			if (edges[contEdge] < edges[first]) first = contEdge;
+		}
+
+		int[] canonical = new int[edges.length];
+
+		for (int contEdge = 0; contEdge < edges.length; contEdge++) {
+			canonical[contEdge] = edges[(first + contEdge) % edges.length];
+		}
+
+		return canonical;
+	}
+
+	@Override
+	  public boolean equals(Object other) {
+	    if (other instanceof ArbitrageCycle) {
+	      ArbitrageCycle that = (ArbitrageCycle) other;
+	      return Arrays.equals(this.canonicalEdges(), that.canonicalEdges());
+	    }
+	    return false;
+	  }
+
+	  @Override
+	  public int hashCode() {
+	    return Arrays.hashCode(canonicalEdges());
+	  }
+
+	// one line of JSON, for the daemon and the proxy:
+	// {"pools":[...],"tokens":[...],"hops":n,"logWeight":w,"deltaProfit":p,"deltaPercent":q}
+	public String toJson() {
+
+		StringBuilder json = new StringBuilder(128 + 48 * poolAddresses.size());
+
+		json.append("{\"pools\":[");
+
+		for (int contPool = 0; contPool < poolAddresses.size(); contPool++) {
+			if (contPool > 0) json.append(',');
+			JsonText.appendString(json, poolAddresses.get(contPool));
+		}
+
+		json.append("],\"tokens\":[");
+
+		for (int contToken = 0; contToken < tokenPath.size(); contToken++) {
+			if (contToken > 0) json.append(',');
+			JsonText.appendString(json, tokenPath.get(contToken).getTokenAddress());
+		}
+
+		json.append("],\"hops\":").append(getHops());
+		json.append(",\"logWeight\":");
+		JsonText.appendNumber(json, logWeight);
+		json.append(",\"deltaProfit\":");
+		JsonText.appendNumber(json, deltaProfitability[0]);
+		json.append(",\"deltaPercent\":");
+		JsonText.appendNumber(json, deltaProfitability[1]);
+
+		return json.append('}').toString();
+	}
+
+	@Override
+	public String toString() {
+
+		return 	"Pools: " + this.getPoolAddresses() + "\n" +
+				"Tokens: " + this.getTokenPath() + "\n" +
+				"Log Weight: " + this.getLogWeight() + "\n" +
+				"Hops: " + this.getHops() + "\n" +
+				"Delta Profit: " + this.getDeltaProfitability()[0] + "\n" +
+				"Delta %: " + this.getDeltaProfitability()[1] + "\n";
+
+	}
+
+}
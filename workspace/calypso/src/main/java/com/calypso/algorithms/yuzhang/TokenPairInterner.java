@@ -0,0 +1,164 @@
+package com.calypso.algorithms.yuzhang;
+
+import java.util.Arrays;
+
+import com.calypso.general.datastructures.NodeInterner;
+import com.google.common.graph.EndpointPair;
+
+public class TokenPairInterner {
+
+	// dense ids for the nodes of G (tokens) and of L (token pairs, Vi -> Vj)
+
+	// tokens are keyed by address, so a pool does not need a new Token to be looked up
+
+	private NodeInterner<String> tokenAddresses;
+	private Token[] tokens;
+
+	private NodeInterner<EndpointPair<Token>> pairs;
+
+	// reverse lookup, token ids of each pair: pairSource[id] -> pairTarget[id]
+	private int[] pairSource;
+	private int[] pairTarget;
+
+	public TokenPairInterner() {
+		this(16);
+	}
+
+	public TokenPairInterner(int expectedTokens) {
+
+		tokenAddresses = new NodeInterner<String>(expectedTokens);
+		tokens = new Token[Math.max(16, expectedTokens)];
+
+		pairs = new NodeInterner<EndpointPair<Token>>(expectedTokens * 4);
+		pairSource = new int[Math.max(16, expectedTokens * 4)];
+		pairTarget = new int[pairSource.length];
+	}
+
+	public int internToken(String tokenAddress) {
+
+		int id = tokenAddresses.intern(tokenAddress);
+
+		if (id == tokens.length) {
+			tokens = Arrays.copyOf(tokens, id << 1);
+		}
+
+		if (tokens[id] == null) {
+			tokens[id] = new Token(tokenAddress);
+		}
+
+		return id;
+	}
+
+	public int internToken(Token token) {
+
+		int id = tokenAddresses.intern(token.getTokenAddress());
+
+		if (id == tokens.length) {
+			tokens = Arrays.copyOf(tokens, id << 1);
+		}
+
+		if (tokens[id] == null) {
+			tokens[id] = token;
+		}
+
+		return id;
+	}
+
+	// canonical instance, the same for every pool holding this address
+	public Token canonicalToken(String tokenAddress) {
+		return tokens[internToken(tokenAddress)];
+	}
+
+	public int indexOfToken(Token token) {
+		return tokenAddresses.indexOf(token.getTokenAddress());
+	}
+
+	public int indexOfToken(String tokenAddress) {
+		return tokenAddresses.indexOf(tokenAddress);
+	}
+
+	public Token getToken(int id) {
+
+		if (id < 0 || id >= tokenAddresses.size()) {
+			throw new IndexOutOfBoundsException("Token id " + id + " out of " + tokenAddresses.size());
+		}
+
+		return tokens[id];
+	}
+
+	public int internPair(Token tokeni, Token tokenj) {
+
+		int i = internToken(tokeni);
+		int j = internToken(tokenj);
+
+		int sizeBefore = pairs.size();
+
+		int id = pairs.intern(EndpointPair.ordered(tokens[i], tokens[j]));
+
+		if (id == sizeBefore) {
+
+			if (id == pairSource.length) {
+				pairSource = Arrays.copyOf(pairSource, id << 1);
+				pairTarget = Arrays.copyOf(pairTarget, id << 1);
+			}
+
+			pairSource[id] = i;
+			pairTarget[id] = j;
+		}
+
+		return id;
+	}
+
+	public int indexOfPair(EndpointPair<Token> pair) {
+		return pairs.indexOf(pair);
+	}
+
+	public EndpointPair<Token> getPair(int id) {
+		return pairs.get(id);
+	}
+
+	public int getPairSource(int id) {
+		return pairSource[id];
+	}
+
+	public int getPairTarget(int id) {
+		return pairTarget[id];
+	}
+
+	public EndpointPair<Token>[] getPairs() {
+
+		EndpointPair<Token>[] response = newPairArray(pairs.size());
+
+		for (int id = 0; id < response.length; id++) {
+			response[id] = pairs.get(id);
+		}
+
+		return response;
+	}
+
+	// Generic arrays cannot be created directly.
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	static EndpointPair<Token>[] newPairArray(int size) {
+		return new EndpointPair[size];
+	}
+
+	public int tokenCount() {
+		return tokenAddresses.size();
+	}
+
+	public int pairCount() {
+		return pairs.size();
+	}
+
+	public void clear() {
+		tokenAddresses.clear();
+		Arrays.fill(tokens, null);
+		pairs.clear();
+	}
+
+	@Override
+	public String toString() {
+		return "( tokens: " + tokenCount() + " pairs: " + pairCount() + " )";
+	}
+
+}
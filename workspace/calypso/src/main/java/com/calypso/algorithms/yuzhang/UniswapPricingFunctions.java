@@ -41,4 +41,11 @@ public class UniswapPricingFunctions {
 		
 	}
 	
+	// same price on reserves already parsed, nothing boxed
+	public static double priceByYus_Kadu(double reservesTokeni, double reservesTokenj) {
+		
+		return - Math.log(complementUniswapFee * (reservesTokeni / reservesTokenj));
+		
+	}
+	
 }
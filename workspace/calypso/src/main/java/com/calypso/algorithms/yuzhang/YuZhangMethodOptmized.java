@@ -2,24 +2,26 @@ package com.calypso.algorithms.yuzhang;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.stream.Collectors;
 
-import com.calypso.general.datastructures.GraphCalypso;
-import com.calypso.general.datastructures.Vertex;
-import com.calypso.general.datastructures.williamfisset.BellmanFordAdjacencyMatrix;
+import com.calypso.general.algorithms.CycleEnumerator;
+import com.calypso.general.datastructures.LineGraph;
+import com.calypso.general.datastructures.NodeInterner;
+import com.calypso.general.datastructures.TokenGraph;
+import com.calypso.general.datastructures.williamfisset.BellmanFordHopBounded;
+import com.calypso.general.datastructures.williamfisset.BellmanFordLineGraph;
+import com.calypso.general.datastructures.williamfisset.BellmanFordSolver;
+import com.calypso.general.datastructures.williamfisset.BellmanFordSolverType;
 import com.calypso.uniswap.UniswapPool;
-import com.google.common.base.Optional;
 import com.google.common.graph.EndpointPair;
-import com.google.common.graph.Graph;
-import com.google.common.graph.GraphBuilder;
-import com.google.common.graph.MutableGraph;
-import com.google.common.graph.MutableValueGraph;
-import com.google.common.graph.ValueGraphBuilder;
 
 public class YuZhangMethodOptmized {
 	
@@ -32,140 +34,197 @@ public class YuZhangMethodOptmized {
 	
 	// between 4- 8 cyclesz
 	
-	private MutableValueGraph<Token, Double> G; 
-	private MutableValueGraph<EndpointPair<Token>, Double> L;
+	// G and L on primitive arrays, token ids from the interner
+	// edge 2p of G is pool p token0 -> token1, edge 2p + 1 is token1 -> token0
+	// L is a view over G, its node e is the edge e of G
 	
-	private BellmanFordAdjacencyMatrix BFM;
+	private TokenGraph G; 
+	private LineGraph L;
+	
+	private BellmanFordSolver BFM;
+	private BellmanFordSolverType solverType = BellmanFordSolverType.EDGE_LIST;
 	
 	private Token  ZERO_TOKEN = new Token("Zero_TOKEN");  // go to constant file
-	private EndpointPair<Token> ZERO_POOL = null;
 	
-	private ArrayList<EndpointPair<Token>> pools = null;
+	// dense ids for tokens (G)
+	private TokenPairInterner interner = new TokenPairInterner();
+	
+	private UniswapPool[] markets = null;
+	
+	// market address -> pool index p, for the per block updates
+	private HashMap<String, Integer> marketIds = new HashMap<String, Integer>();
+	
+	// nodes of L whose weight changed since the last search
+	private int[] changedNodes = new int[16];
+	private int changedCount = 0;
+	private boolean[] poolChanged = new boolean[0];
+	
+	// distances of the last search are a valid warm start
+	private boolean warm = false;
+	
+	// prints G, L and every shortest path, off on the hot path
+	private boolean verbose = false;
+	
+	// cycles of the last search
+	private List<ArbitrageCycle> results = new ArrayList<ArbitrageCycle>();
+	
+	// hop-bounded search only completes cycles that can still pay
+	private boolean hopPruning = false;
+	
+	// the profitability filter, off until setGasFilter. a cycle through the gas token (WETH,
+	// its reserves are in wei) is kept only when its profit on tradeSizeWei pays the gas of a
+	// swap through every pool, gasPriceWei * (GAS_BASE + hops * GAS_PER_HOP). the cycles that
+	// miss the gas token are kept, their gas would need a price in their tokens
+	public static final long GAS_BASE = 50000;
+	public static final long GAS_PER_HOP = 60000;
+	
+	private Token gasToken = null;
+	private double tradeSizeWei = 0.0;
+	private double gasPriceWei = 0.0;
+	
+	// runs the per base token searches of findOpportunities(pools, baseTokens)
+	private ForkJoinPool searchPool = ForkJoinPool.commonPool();
+	
+	// solver of every base token of the last findOpportunities(pools, baseTokens), by token id.
+	// their distances are the warm start of findOpportunities(baseTokens)
+	private HashMap<Integer, BellmanFordSolver> baseSolvers = new HashMap<Integer, BellmanFordSolver>();
 	
 	public YuZhangMethodOptmized() {
 		
-		G = ValueGraphBuilder
-				.directed()
-				.allowsSelfLoops(true)
-				.build();
+		G = new TokenGraph();
+		
+		L = new LineGraph(G);
 		
-		L = ValueGraphBuilder
-				.directed()
-				.allowsSelfLoops(true)
-				.build();
+	}
+
+	public YuZhangMethodOptmized(BellmanFordSolverType solverType) {
 		
+		this();
+		
+		this.solverType = solverType;
+		
+	}
+	
+	public BellmanFordSolverType getSolverType() {
+		return solverType;
 	}
+
+	public void setSolverType(BellmanFordSolverType solverType) {
+		this.solverType = solverType;
+	}
+	
+	public boolean isVerbose() {
+		return verbose;
+	}
+	
+	// the gas price from FeeOracle, set before every search it should count in
+	public void setGasFilter(String gasTokenAddress, double tradeSizeWei, double gasPriceWei) {
+		this.gasToken = new Token(gasTokenAddress);
+		this.tradeSizeWei = tradeSizeWei;
+		this.gasPriceWei = gasPriceWei;
+	}
+	
+	public void clearGasFilter() {
+		this.gasToken = null;
+	}
+
+	public void setVerbose(boolean verbose) {
+		this.verbose = verbose;
+	}
+	
+	public boolean isHopPruning() {
+		return hopPruning;
+	}
+
+	public void setHopPruning(boolean hopPruning) {
+		this.hopPruning = hopPruning;
+	}
+	
+	public ForkJoinPool getSearchPool() {
+		return searchPool;
+	}
+
+	public void setSearchPool(ForkJoinPool searchPool) {
+		this.searchPool = searchPool;
+	}
+	
+	// buildG, buildL, putZeroEdge and the phases are package-private for the benchmarks
 	
-	private void buildG(UniswapPool[] pools) {
+	void buildG(UniswapPool[] pools) {
 		int poolsLenght = pools.length;
 		
+		// arrays are kept from the last block
+		G.clear();
+		
+		this.markets = pools;
+		
+		marketIds.clear();
+		poolChanged = new boolean[poolsLenght];
+		changedCount = 0;
+		warm = false;
+		baseSolvers.clear();
+		
 		for(int contPool = 0; contPool < poolsLenght ; contPool++) {
 			
 			UniswapPool market = pools[contPool];
 			
-			String tokeni = market.getToken0();
+			marketIds.put(market.getMarketAddress(), Integer.valueOf(contPool));
 			
-			String tokenj = market.getToken1();
+			int i = interner.internToken(market.getToken0());
 			
-			Double[] prices = market.getMidPricing(); // 0 -> Pij, 1 -> Pji
+			int j = interner.internToken(market.getToken1());
 			
-			Token  i = new Token (tokeni);
-			Token  j = new Token (tokenj);
-			
-			G.putEdgeValue(i, j, prices[0].doubleValue());
-			G.putEdgeValue(j, i, prices[1].doubleValue());
+			// Pij, Pji, cached by the pool
+			G.addEdge(i, j, market.getWeight01()); // 2 * contPool
+			G.addEdge(j, i, market.getWeight10()); // 2 * contPool + 1
 		}
 		
 	}
 	
-	private void buildL() {
+	void buildL() {
 		
-		Set<EndpointPair<Token >> pools =  G.edges();
+		// L reads its successors from the CSR of G
 		
 		// check for one degree vertices and take them out.
 				// I want 2 predecessors and 1 sucessor, 
 				// as one successor is one predecessor
 		
-		pools.forEach( (pair) -> {
-			
-			Token  tokeni = pair.nodeU();
-			Token  tokenj = pair.nodeV();
-			
-			addEdgeToL(tokeni, tokenj);
-			
-		}); // for each pair
+		G.compress();
 		
 	}
 	
-	private void addEdgeToL(Token  tokeni, Token  tokenj) {
+	void putZeroEdge(Token  token0) {
 		
-		Set<Token> successors = G.successors(tokenj);
+		int startToken = interner.indexOfToken(token0);
 		
-		successors.forEach((tokenl) -> {
-			
-			if (!(tokenl.equals(tokeni))) {
-				
-				EndpointPair<Token> ViVj =  EndpointPair.ordered( tokeni, tokenj);
-				EndpointPair<Token> VjVl =  EndpointPair.ordered( tokenj, tokenl);
-				
-				double Wijl = G.edgeValue(tokenj, tokenl).get();
-				
-				L.putEdgeValue(ViVj, VjVl, Wijl); 
-				
-			}
-		}); // for each token
-	}
-	
-	private void putZeroEdge(Token  token0) {
+		// distances from another token are no warm start
+		if (startToken != L.getStartToken()) {
+			warm = false;
+		}
 		
-		addEdgeToL(ZERO_TOKEN, token0);
+		L.setStartToken(startToken);
 		
 	}
 
 	private void removeZeroEdge(Token  token0) {
-		// remove ZEROToken?
+		// the zero pool is virtual, nothing to remove
 	}
 	
-	private void MBF_Phase_I(Token  token0) { 
-		
-		pools = new ArrayList<EndpointPair<Token>>(L.nodes());
-		
-		int n = pools.size();
-		
-		ZERO_POOL = EndpointPair.ordered(this.ZERO_TOKEN, token0);
+	void MBF_Phase_I(Token  token0) { 
 		
-		int start = pools.indexOf(ZERO_POOL);;
-		  
-		// check for Zero Edge
-		
-		Set<EndpointPair<EndpointPair<Token>>> poolOfPools = L.edges();
-		
-		double[][] graph = new double[n][n]; // change to sparse later
+	    BellmanFordSolver solver = solvePhaseI();
 	    
-	 // Setup completely disconnected graph with the distance
-	    // from a node to itself to be zero.
-	    for (int i = 0; i < n; i++) {
-	      java.util.Arrays.fill(graph[i], Double.POSITIVE_INFINITY);
+	    if (!verbose) {
+	    	return;
 	    }
-	    
-		poolOfPools.forEach( (pool) -> {
-			
-			EndpointPair<Token> ViVj = pool.nodeU();
-			EndpointPair<Token> VjVl = pool.nodeV();
-			
-			double Wijl = L.edgeValue(pool).get(); // ha poderia ter posto direto
-			
-			int indexPoolViVj = pools.indexOf(ViVj);
-			int indexPoolVjVl = pools.indexOf(VjVl);
-			
-			graph[indexPoolViVj][indexPoolVjVl] = Wijl;
-			
-		});
 		
-		//int start = 0;
+		int n = L.nodeCount();
+		
+		int start = L.startNode();
+		
+		int token0Id = interner.indexOfToken(token0);
+		int goodArbId = interner.indexOfToken("0xC02aaA39b223FE8D0A0e5C4F27eAD9083C756Cc2");
 		
-	    BellmanFordAdjacencyMatrix solver;
-	    solver = new BellmanFordAdjacencyMatrix(start, graph);
 	    double[] d = solver.getShortestPaths();
 
 	    for (int i = 0; i < n; i++)
@@ -189,13 +248,12 @@ public class YuZhangMethodOptmized {
 		    
 	        // circular path
 	        if (pathIndexes.length >= 1) {
-	         Integer lastToken = pathIndexes[pathIndexes.length - 1];
-	         EndpointPair<Token> lastpool = pools.get(lastToken);
+	         int lastToken = L.headToken(pathIndexes[pathIndexes.length - 1]);
 	         
-	         if (token0.equals(lastpool.nodeV())) {
+	         if (lastToken == token0Id) {
 	        	 System.out.println("Cycled"); 
 	        	 System.out.println("");
-	         } else if ((new Token("0xC02aaA39b223FE8D0A0e5C4F27eAD9083C756Cc2")).equals(lastpool.nodeV())) {
+	         } else if (lastToken == goodArbId) {
 	        	 System.out.println("Found Good Arb"); 
 	        	 System.out.println("");
 	        	 
@@ -203,9 +261,8 @@ public class YuZhangMethodOptmized {
 	         }
 	        
 		      for (Integer index: pathIndexes) {
-		        	EndpointPair<Token> pool = pools.get(index);
 		        	
-		        	System.out.println(" [" + index +"]: " + pool.toString());
+		        	System.out.println(" [" + index +"]: " + poolToString(index));
 		        	
 		        	// it can go here
 		        }
@@ -220,12 +277,189 @@ public class YuZhangMethodOptmized {
 	        
 	}
 		
-	private void MBF_PhaseII(Token  token0) {
+	private BellmanFordSolver solvePhaseI() {
+		
+		if (warm && BFM instanceof BellmanFordLineGraph) {
+			
+			((BellmanFordLineGraph) BFM).update(changedNodes, changedCount);
+			
+		} else {
+			
+			BFM = solverType.newSolver(L);
+			BFM.solve();
+			
+		}
+		
+		clearChanges();
+		warm = true;
+		
+		// the base token solvers did not see these changes
+		baseSolvers.clear();
+		
+		return BFM;
+	}
+	
+	// new reserves of a market already in G, only its two edges change.
+	// returns false for a market G does not know, that needs a full findOpportunities
+	public boolean updatePool(String marketAddress, String balance0, String balance1) {
+		
+		Integer poolId = marketIds.get(marketAddress);
+		
+		if (poolId == null) {
+			return false;
+		}
+		
+		int pool = poolId.intValue();
+		
+		UniswapPool market = markets[pool];
+		
+		market.setReserves(balance0, balance1);
+		
+		G.setWeight(2 * pool, market.getWeight01());
+		G.setWeight(2 * pool + 1, market.getWeight10());
+		
+		if (!poolChanged[pool]) {
+			
+			poolChanged[pool] = true;
+			
+			if (changedCount + 2 > changedNodes.length) {
+				changedNodes = Arrays.copyOf(changedNodes, changedNodes.length << 1);
+			}
+			
+			changedNodes[changedCount++] = 2 * pool;
+			changedNodes[changedCount++] = 2 * pool + 1;
+		}
+		
+		return true;
+	}
+	
+	public int getChangedPools() {
+		return changedCount / 2;
+	}
+	
+	private void clearChanges() {
+		
+		for (int contNode = 0; contNode < changedCount; contNode++) {
+			poolChanged[changedNodes[contNode] >> 1] = false;
+		}
 		
+		changedCount = 0;
+	}
 	
+	void MBF_PhaseII(Token  token0) {
+		
+		results = extractCycles(BFM, L, interner.indexOfToken(token0));
 		
 	}
 	
+	// the negative cycles of L that go through tokenId, plus the shortest returns
+	// to tokenId that pay, each as an ArbitrageCycle starting at tokenId
+	private List<ArbitrageCycle> extractCycles(BellmanFordSolver solver, LineGraph sourceL, int tokenId) {
+		
+		List<ArbitrageCycle> cycles = new ArrayList<ArbitrageCycle>();
+		
+		for (List<Integer> negativeCycle : solver.getNegativeCycles()) {
+			
+			ArbitrageCycle cycle = toCycle(negativeCycle, tokenId);
+			
+			if (cycle != null) {
+				cycles.add(cycle);
+			}
+		}
+		
+		double[] d = solver.getShortestPaths();
+		
+		for (int node = 0; node < sourceL.startNode(); node++) {
+			
+			if (G.target(node) != tokenId || d[node] >= 0) {
+				continue; // does not come back, or does not pay
+			}
+			
+			List<Integer> path = solver.reconstructShortestPath(node);
+			
+			if (path == null || path.size() < 3) {
+				continue; // behind a negative cycle, already taken above
+			}
+			
+			ArbitrageCycle cycle = toCycle(path.subList(1, path.size()), tokenId);
+			
+			if (cycle != null && !cycles.contains(cycle)) {
+				cycles.add(cycle);
+			}
+		}
+		
+		return cycles;
+	}
+	
+	// nodes of L (edges of G) in cycle order, rotated to leave tokenId first.
+	// null if the cycle does not go through tokenId, or does not pay its gas
+	private ArbitrageCycle toCycle(List<Integer> nodes, int tokenId) {
+		
+		int hops = nodes.size();
+		
+		int first = 0;
+		
+		while (first < hops && G.source(nodes.get(first)) != tokenId) {
+			first++;
+		}
+		
+		if (first == hops) {
+			return null;
+		}
+		
+		int[] edges = new int[hops];
+		List<String> poolAddresses = new ArrayList<String>(hops);
+		List<Token> tokenPath = new ArrayList<Token>(hops + 1);
+		
+		double logWeight = 0.0;
+		
+		for (int contHop = 0; contHop < hops; contHop++) {
+			
+			int edge = nodes.get((first + contHop) % hops);
+			
+			edges[contHop] = edge;
+			poolAddresses.add(markets[edge >> 1].getMarketAddress());
+			tokenPath.add(interner.getToken(G.source(edge)));
+			
+			logWeight += G.weight(edge);
+		}
+		
+		tokenPath.add(interner.getToken(tokenId));
+		
+		Double[] profitability = getCycleProfitability(logWeight);
+		
+		if (!paysGas(tokenPath, hops, profitability[0])) {
+			return null;
+		}
+		
+		return new ArbitrageCycle(edges, poolAddresses, tokenPath, logWeight, profitability);
+	}
+	
+	// the profit ratio is the same from every token of the cycle, so a cycle found from
+	// another base token is checked as well when it goes through the gas token
+	private boolean paysGas(List<Token> tokenPath, int hops, double deltaProfit) {
+		
+		if (gasToken == null || !tokenPath.contains(gasToken)) {
+			return true;
+		}
+		
+		return deltaProfit * tradeSizeWei > gasPriceWei * (GAS_BASE + hops * (double) GAS_PER_HOP);
+	}
+	
+	// the weights of G already take the pool fee, so what comes back for each unit
+	// sent is e (-logWeight), without the n Yus of getDeltaProfitability
+	private Double[] getCycleProfitability(double logWeight) {
+		
+		double deltaProfit = Math.exp(-logWeight) - 1;
+		
+		Double[] response = new Double[2];
+		
+		response[0] = Double.valueOf(deltaProfit);
+		response[1] = Double.valueOf(100 * deltaProfit);
+		
+		return response;
+	}
+	
 	public Double[] getDeltaProfitability(double dist, int numberOfHops) {
 		
 		// give delta Profit and Delta % from initial capital to result
@@ -248,7 +482,7 @@ public class YuZhangMethodOptmized {
 		return response;
 	}
 		
-	public Object findOpportunities(UniswapPool[] pools, String token0Address, String marketAddress) {
+	public List<ArbitrageCycle> findOpportunities(UniswapPool[] pools, String token0Address, String marketAddress) {
 		
 		Token  token0 = new Token (token0Address);
 		
@@ -268,54 +502,313 @@ public class YuZhangMethodOptmized {
 		
 	}
 	
+	// search again on the G of the last findOpportunities, after updatePool calls.
+	// the last distances are the warm start, so the cost follows the changed pools
+	public List<ArbitrageCycle> findOpportunities(String token0Address, String marketAddress) {
+		
+		if (markets == null) {
+			return new ArrayList<ArbitrageCycle>();
+		}
+		
+		Token  token0 = new Token (token0Address);
+		
+		putZeroEdge(token0);
+		
+		MBF_Phase_I(token0);
+		
+		removeZeroEdge(token0);
+		
+		MBF_PhaseII(token0);
+		
+		return  packageResults();
+		
+	}
+	
+	// cycles of at most maxHops pools, "between 4- 8", by a layered search over L
+	// instead of Bellman-Ford. returns the best cycle found for each hop count, fewest hops first.
+	// the search keeps one walk per node and layer, so it can miss a cycle, see BellmanFordHopBounded
+	public List<ArbitrageCycle> findOpportunities(UniswapPool[] pools, String token0Address, int maxHops) {
+		
+		Token  token0 = new Token (token0Address);
+		
+		buildG(pools);
+		
+		putZeroEdge(token0);
+		
+		buildL();
+		
+		results = new ArrayList<ArbitrageCycle>();
+		
+		int tokenId = interner.indexOfToken(token0);
+		
+		if (tokenId == NodeInterner.ABSENT) {
+			return packageResults();
+		}
+		
+		BellmanFordHopBounded hopSolver = new BellmanFordHopBounded(L, maxHops, hopPruning);
+		
+		for (int hops = 2; hops <= maxHops; hops++) {
+			
+			double[] d = hopSolver.getLayer(hops);
+			
+			int best = -1;
+			
+			for (int node = 0; node < L.startNode(); node++) {
+				
+				if (G.target(node) == tokenId && d[node] != Double.POSITIVE_INFINITY
+						&& (best == -1 || d[node] < d[best])) {
+					best = node;
+				}
+			}
+			
+			if (best == -1) {
+				continue;
+			}
+			
+			List<Integer> path = hopSolver.reconstructShortestPath(hops, best);
+			
+			// the hop-bounded walks never take a pool twice
+			ArbitrageCycle cycle = toCycle(path.subList(1, path.size()), tokenId);
+			
+			if (cycle != null) {
+				results.add(cycle);
+			}
+		}
+		
+		return packageResults();
+	}
+	
+	// every paying cycle of at most maxHops pools through the base token, by enumeration.
+	// exhaustive, so only for small maxHops. the pools of each cycle are all different
+	public List<ArbitrageCycle> findAllOpportunities(UniswapPool[] pools, String token0Address, int maxHops) {
+		
+		buildG(pools);
+		
+		buildL();
+		
+		List<ArbitrageCycle> cycles = new ArrayList<ArbitrageCycle>();
+		
+		int tokenId = interner.indexOfToken(token0Address);
+		
+		// the interner outlives G, a token of an earlier build may have no node now
+		if (tokenId != NodeInterner.ABSENT && tokenId < G.nodeCount()) {
+			
+			CycleEnumerator enumerator = new CycleEnumerator(G, maxHops);
+			
+			enumerator.setMaxWeight(0.0);
+			
+			CycleEnumerator.CycleListener listener = (edges, length, weight) -> {
+				
+				List<Integer> nodes = new ArrayList<Integer>(length);
+				
+				for (int contEdge = 0; contEdge < length; contEdge++) {
+					nodes.add(edges[contEdge]);
+				}
+				
+				ArbitrageCycle cycle = toCycle(nodes, tokenId);
+				
+				synchronized (cycles) {
+					cycles.add(cycle);
+				}
+			};
+			
+			enumerator.enumerate(tokenId, listener, searchPool);
+		}
+		
+		results = cycles;
+		
+		return packageResults();
+	}
+	
+	// one G for every base token, the Bellman-Ford of each token runs on searchPool.
+	// returns the cycles through any of them, each once
+	public List<ArbitrageCycle> findOpportunities(UniswapPool[] pools, Collection<String> baseTokens) {
+		
+		buildG(pools);
+		
+		buildL();
+		
+		return searchBaseTokens(baseTokens);
+	}
+	
+	// search again on the G of the last findOpportunities(pools, baseTokens), after updatePool calls.
+	// every base token restarts from its last distances, so the cost follows the changed pools
+	public List<ArbitrageCycle> findOpportunities(Collection<String> baseTokens) {
+		
+		if (markets == null) {
+			return new ArrayList<ArbitrageCycle>();
+		}
+		
+		return searchBaseTokens(baseTokens);
+	}
+	
+	private List<ArbitrageCycle> searchBaseTokens(Collection<String> baseTokens) {
+		
+		// G and the interner are only read from here on
+		
+		List<ForkJoinTask<List<ArbitrageCycle>>> searches = new ArrayList<ForkJoinTask<List<ArbitrageCycle>>>();
+		Set<Integer> searched = new HashSet<Integer>();
+		
+		for (String baseToken : new LinkedHashSet<String>(baseTokens)) {
+			
+			int tokenId = interner.indexOfToken(baseToken);
+			
+			if (tokenId == NodeInterner.ABSENT) {
+				continue; // no pool holds it
+			}
+			
+			BellmanFordSolver solver = baseSolvers.get(tokenId);
+			
+			if (solver == null) {
+				solver = solverType.newSolver(new LineGraph(G, tokenId));
+				baseSolvers.put(tokenId, solver);
+			}
+			
+			searched.add(tokenId);
+			
+			BellmanFordSolver tokenSolver = solver;
+			
+			searches.add(searchPool.submit(() -> cyclesFrom(tokenSolver, tokenId)));
+		}
+		
+		// the same cycle comes back from every base token it goes through
+		Set<ArbitrageCycle> cycles = new LinkedHashSet<ArbitrageCycle>();
+		
+		for (ForkJoinTask<List<ArbitrageCycle>> search : searches) {
+			cycles.addAll(search.join());
+		}
+		
+		// the changes are cleared for all, a solver left out of this search would warm start
+		// later from distances that missed them
+		baseSolvers.keySet().retainAll(searched);
+		
+		clearChanges();
+		
+		// BFM of the single token search did not see these changes
+		warm = false;
+		
+		results = new ArrayList<ArbitrageCycle>(cycles);
+		
+		return packageResults();
+	}
+	
+	private List<ArbitrageCycle> cyclesFrom(BellmanFordSolver solver, int tokenId) {
+		
+		// a new line graph solver has nothing to update and solves from scratch
+		if (solver instanceof BellmanFordLineGraph) {
+			((BellmanFordLineGraph) solver).update(changedNodes, changedCount);
+		} else {
+			solver.solve();
+		}
+		
+		// every L over G has the same nodes, only the start token differs
+		return extractCycles(solver, L, tokenId);
+	}
+	
 	// for those bellow, check if it can do it
 	
 	public void printResults() {
 		
 		System.out.println("G: ");
-		//System.out.println(G);
+		System.out.println(G);
 		System.out.println("");
 		System.out.println("L: ");
 		System.out.println(L);
 		System.out.println("");
 		
+		for (ArbitrageCycle cycle : results) {
+			System.out.println(cycle);
+		}
+		
 	}
 	
-	public Object packageResults() {
+	public List<ArbitrageCycle> packageResults() {
 		
 		// return paths with profit, just cycle arbs
 		// all pools
 		// all tokens
 		
-		printResults();
+		if (verbose) {
+			printResults();
+		}
 		
-		return null;
+		return results;
+	}
+	
+	public List<ArbitrageCycle> getResults() {
+		return results;
+	}
+	
+	private Token tokenOf(int tokenId) {
+		return (tokenId == LineGraph.NO_TOKEN) ? ZERO_TOKEN : interner.getToken(tokenId);
+	}
+	
+	// node of L -> <( Vi ) -> ( Vj )> market
+	private String poolToString(int node) {
+		
+		String pool = "<" + tokenOf(L.tailToken(node)) + " -> " + tokenOf(L.headToken(node)) + ">";
+		
+		if (node < L.startNode() && markets != null) {
+			pool = pool + " " + markets[node >> 1].getMarketAddress();
+		}
+		
+		return pool;
 	}
 	
 	public Set<Token > tokenList() { 
-		return G.nodes();
+		
+		Set<Token> tokens = new HashSet<Token>();
+		
+		for (int id = 0; id < G.nodeCount(); id++) {
+			tokens.add(interner.getToken(id));
+		}
+		
+		return tokens;
 	}
 	
 	public EndpointPair<Token>[] getPools() {
 		
-		// test
+		// nodes of L, built on demand
 		
-		if (pools != null) {
-			return (EndpointPair<Token>[])pools.toArray();
+		if (G.edgeCount() == 0) {
+			return null;
 		}
 		
-		return null;
+		EndpointPair<Token>[] pools = TokenPairInterner.newPairArray(L.nodeCount());
+		
+		for (int node = 0; node < pools.length; node++) {
+			pools[node] = EndpointPair.ordered(tokenOf(L.tailToken(node)), tokenOf(L.headToken(node)));
+		}
+		
+		return pools;
+	}
+	
+	public UniswapPool getMarket(int node) {
+		return (node < L.startNode() && markets != null) ? markets[node >> 1] : null;
 	}
 	
 	public String printG() {
-		return G.toString();
+		
+		StringBuilder graph = new StringBuilder(G.toString());
+		
+		for (int e = 0; e < G.edgeCount(); e++) {
+			graph.append("\n").append(tokenOf(G.source(e))).append(" -> ")
+				 .append(tokenOf(G.target(e))).append(": ").append(G.weight(e));
+		}
+		
+		return graph.toString();
 	}
 	
 	public String printGEdges() {
 		
-		Set<EndpointPair<Token >> tokenSet =  G.edges();
+		StringBuilder edges = new StringBuilder("[");
+		
+		for (int e = 0; e < G.edgeCount(); e++) {
+			if (e > 0) edges.append(", ");
+			edges.append("<").append(tokenOf(G.source(e))).append(" -> ").append(tokenOf(G.target(e))).append(">");
+		}
 		 
-		return tokenSet.toString();
+		return edges.append("]").toString();
 	}
 	
 	public String printL() {
@@ -345,6 +838,8 @@ public class YuZhangMethodOptmized {
 		  yusHan.findOpportunities(pools, "WETH:UNI", "UNI"); */
 		  
 		 YuZhangMethodOptmized yusHan = new YuZhangMethodOptmized();
+		 
+		 yusHan.setVerbose(true);
 		  
 		 /* UniswapPool[] pools = new UniswapPool[3];
 		  
@@ -374,6 +869,26 @@ public class YuZhangMethodOptmized {
 
 		  yusHan.findOpportunities(pools, "USD", "UNI");
 		  
+		  // 2 to 8 pools, best of each
+		  
+		  /* for (ArbitrageCycle cycle : yusHan.findOpportunities(pools, "USD", 8)) {
+			  System.out.println(cycle);
+		  } */
+		  
+		  // from every token at once
+		  
+		  /* List<ArbitrageCycle> cycles = yusHan.findOpportunities(pools, Arrays.asList("USD", "WETH", "KaduCoin"));
+		  
+		  for (ArbitrageCycle cycle : cycles) {
+			  System.out.println(cycle);
+		  } */
+		  
+		  // next block, only one pool moved
+		  
+		  /* yusHan.updatePool("UNI", "2", "3");
+		  
+		  yusHan.findOpportunities("USD", "UNI"); */
+		  
 		 
 
 		  //System.out.println("Connected and sent!!!!: " + args[0]);
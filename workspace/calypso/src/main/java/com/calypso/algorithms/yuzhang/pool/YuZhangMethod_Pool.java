@@ -10,9 +10,11 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import com.calypso.algorithms.yuzhang.Token;
+import com.calypso.algorithms.yuzhang.TokenPairInterner;
 import com.calypso.general.datastructures.GraphCalypso;
 import com.calypso.general.datastructures.Vertex;
-import com.calypso.general.datastructures.williamfisset.BellmanFordAdjacencyMatrix;
+import com.calypso.general.datastructures.williamfisset.BellmanFordSolver;
+import com.calypso.general.datastructures.williamfisset.BellmanFordSolverType;
 import com.calypso.uniswap.UniswapPool;
 import com.google.common.base.Optional;
 import com.google.common.graph.EndpointPair;
@@ -29,10 +31,14 @@ public class YuZhangMethod_Pool {
 	private MutableValueGraph<Token, Double> G; 
 	private MutableValueGraph<EndpointPair<Token>, Double> L;
 	
-	private BellmanFordAdjacencyMatrix BFM;
+	private BellmanFordSolver BFM;
+	private BellmanFordSolverType solverType = BellmanFordSolverType.EDGE_LIST;
 	
 	private Token  ZERO_TOKEN = new Token("Zero_TOKEN");  // go to constant file
 	
+	// dense ids for tokens (G) and pools (L)
+	private TokenPairInterner interner = new TokenPairInterner();
+	
 	public YuZhangMethod_Pool() {
 		
 		G = ValueGraphBuilder
@@ -46,6 +52,22 @@ public class YuZhangMethod_Pool {
 				.build();
 		
 	}
+
+	public YuZhangMethod_Pool(BellmanFordSolverType solverType) {
+		
+		this();
+		
+		this.solverType = solverType;
+		
+	}
+	
+	public BellmanFordSolverType getSolverType() {
+		return solverType;
+	}
+
+	public void setSolverType(BellmanFordSolverType solverType) {
+		this.solverType = solverType;
+	}
 	
 	private void buildG(UniswapPool[] pools) {
 		int poolsLenght = pools.length;
@@ -60,8 +82,8 @@ public class YuZhangMethod_Pool {
 			
 			Double[] prices = market.getMidPricing(); // 0 -> Pij, 1 -> Pji
 			
-			Token  i = new Token (tokeni);
-			Token  j = new Token (tokenj);
+			Token  i = interner.canonicalToken(tokeni);
+			Token  j = interner.canonicalToken(tokenj);
 			
 			G.putEdgeValue(i, j, prices[0].doubleValue());
 			G.putEdgeValue(j, i, prices[1].doubleValue());
@@ -96,8 +118,8 @@ public class YuZhangMethod_Pool {
 			
 			if (!(tokenl.equals(tokeni))) {
 				
-				EndpointPair<Token> ViVj =  EndpointPair.ordered( tokeni, tokenj);
-				EndpointPair<Token> VjVl =  EndpointPair.ordered( tokenj, tokenl);
+				EndpointPair<Token> ViVj =  interner.getPair(interner.internPair(tokeni, tokenj));
+				EndpointPair<Token> VjVl =  interner.getPair(interner.internPair(tokenj, tokenl));
 				
 				double Wijl = G.edgeValue(tokenj, tokenl).get();
 				
@@ -119,44 +141,40 @@ public class YuZhangMethod_Pool {
 	
 	private void MBF_Phase_I(Token  token0) { 
 		
-		ArrayList<EndpointPair<Token>> pools = 
-				new ArrayList<EndpointPair<Token>>(L.nodes());
-		
-		System.out.println(pools);
+		System.out.println(Arrays.toString(interner.getPairs()));
 		
-		int n = pools.size();
+		int n = interner.pairCount();
 		
 		EndpointPair<Token> ZERO_POOL =
 				EndpointPair.ordered(this.ZERO_TOKEN, token0);
 		
-		int start = pools.indexOf(ZERO_POOL);;
+		int start = interner.indexOfPair(ZERO_POOL);
 		  
 		// check for Zero Edge
 		
 		Set<EndpointPair<EndpointPair<Token>>> poolOfPools = L.edges();
 		
-		//int n = 9;
-	    double[][] graph = new double[n][n]; // change to sparse later
-	    
-	 // Setup completely disconnected graph with the distance
-	    // from a node to itself to be zero.
-	    for (int i = 0; i < n; i++) {
-	      java.util.Arrays.fill(graph[i], Double.POSITIVE_INFINITY);
-	    }
-	    
-		poolOfPools.forEach( (pool) -> {
+		// edge list of L, no n x n matrix
+		
+		int m = poolOfPools.size();
+		
+		int[] from = new int[m];
+		int[] to = new int[m];
+		double[] weights = new double[m];
+		
+		int e = 0;
+		
+		for (EndpointPair<EndpointPair<Token>> pool : poolOfPools) {
 			
 			EndpointPair<Token> ViVj = pool.nodeU();
 			EndpointPair<Token> VjVl = pool.nodeV();
 			
-			double Wijl = L.edgeValue(pool).get(); // ha poderia ter posto direto
-			
-			int indexPoolViVj = pools.indexOf(ViVj);
-			int indexPoolVjVl = pools.indexOf(VjVl);
-			
-			graph[indexPoolViVj][indexPoolVjVl] = Wijl;
+			from[e] = interner.indexOfPair(ViVj);
+			to[e] = interner.indexOfPair(VjVl);
+			weights[e] = L.edgeValue(pool).get();
 			
-		});
+			e++;
+		}
 		
 		/*
 	    
@@ -173,8 +191,9 @@ public class YuZhangMethod_Pool {
 	    
 		//int start = 0;
 		
-	    BellmanFordAdjacencyMatrix solver;
-	    solver = new BellmanFordAdjacencyMatrix(start, graph);
+	    BellmanFordSolver solver = solverType.newSolver(start, n, from, to, weights, m);
+	    BFM = solver;
+	    
 	    double[] d = solver.getShortestPaths();
 
 	    for (int i = 0; i < n; i++)
@@ -197,7 +216,7 @@ public class YuZhangMethod_Pool {
 	        System.out.printf("The shortest path from %d to %d is: [%s]\n", start, i, strPath);
 		      
 		      for (Integer index: pathIndexes) {
-		        	EndpointPair<Token> pool = pools.get(index);
+		        	EndpointPair<Token> pool = interner.getPair(index);
 		        	
 		        	System.out.println(" [" + index +"]: " + pool.toString());
 		        }
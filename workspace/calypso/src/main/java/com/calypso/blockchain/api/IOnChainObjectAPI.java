@@ -59,4 +59,7 @@ public interface IOnChainObjectAPI extends IApi {
 	public String getTransactionReceipt(String transactionHash) throws IOException;
 	
 	public String getBalanceToPlainString(String _address) throws IOException;
+	
+	// the calls above and receipts in one round trip, see RpcBatch
+	public RpcBatch newBatch();
 }
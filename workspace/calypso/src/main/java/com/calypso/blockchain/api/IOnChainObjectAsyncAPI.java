@@ -0,0 +1,47 @@
+package com.calypso.blockchain.api;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import org.web3j.protocol.core.methods.response.EthSendTransaction;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+
+import com.calypso.blockchain.objects.ChainsList;
+
+public interface IOnChainObjectAsyncAPI extends IApi {
+	
+	// IOnChainObjectAPI without the wait: every call starts at once and returns its future,
+	// so a bot fans out gas price, nonce, block and balances and joins them, paying for
+	// the slowest one instead of the sum. a failed call completes exceptionally with the
+	// IOException of the blocking version as the cause
+	
+	public CompletableFuture<String> getClientVersionAsync();
+	
+	public CompletableFuture<ChainsList> getNetworkAsync();
+	
+	public CompletableFuture<String> getNetworkToPlainStringAsync();
+	
+	public CompletableFuture<BigInteger> getBlockNumberAsync();
+	
+	public CompletableFuture<BigInteger> getGasPriceWeiAsync();
+	
+	public CompletableFuture<BigDecimal> getGasPriceAsync();
+	
+	public CompletableFuture<String> getGasPriceToPlainStringAsync();
+	
+	public CompletableFuture<BigInteger> getBalanceWeiAsync(String _address);
+	
+	public CompletableFuture<BigDecimal> getBalanceAsync(String _address);
+	
+	public CompletableFuture<String> getBalanceToPlainStringAsync(String _address);
+	
+	// the nonce of the next transaction of the address
+	public CompletableFuture<BigInteger> getTransactionCountAsync(String _address);
+	
+	public CompletableFuture<EthSendTransaction> ethSendRawTransactionAsync(String signedHexMessage);
+	
+	// empty while the transaction is pending
+	public CompletableFuture<Optional<TransactionReceipt>> getTransactionReceiptAsync(String transactionHash);
+}
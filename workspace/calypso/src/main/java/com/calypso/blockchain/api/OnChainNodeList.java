@@ -1,6 +1,8 @@
 package com.calypso.blockchain.api;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import com.calypso.blockchain.objects.ChainsList;
@@ -21,11 +23,14 @@ public enum OnChainNodeList {
 	
 	private static final Map<ChainsList, OnChainNodeList> BY_CHAIN = new HashMap<>();
 	private static final Map<String, OnChainNodeList> BY_URL= new HashMap<>();
+	// every node of a chain, BY_CHAIN keeps the last one only
+	private static final Map<ChainsList, List<OnChainNodeList>> ALL_BY_CHAIN = new HashMap<>();
 	 
 	 static {
 	    for (OnChainNodeList e : values()) {
 	        BY_CHAIN.put(e.chain, e);
 	        BY_URL.put(e.URL, e);
+	        ALL_BY_CHAIN.computeIfAbsent(e.chain, c -> new ArrayList<>()).add(e);
 	    }
 	}
 	
@@ -38,5 +43,9 @@ public enum OnChainNodeList {
         return BY_CHAIN.get(_chain);
     }
 	
+	public static List<OnChainNodeList> allOfChain(ChainsList _chain) {
+        return ALL_BY_CHAIN.getOrDefault(_chain, List.of());
+    }
+	
 }
  
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.calypso.blockchain.api;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+
+public interface RpcBatch {
+	
+	// many calls in one JSON-RPC array request, one round trip:
+	//
+	//   RpcBatch batch = api.newBatch();
+	//   CompletableFuture<BigInteger> block = batch.getBlockNumber();
+	//   CompletableFuture<BigInteger> balance = batch.getBalanceWei(address);
+	//   batch.send();
+	//
+	// the futures complete on send, a call the node answers with an error
+	// completes exceptionally, the other calls of the batch are not affected
+	
+	public CompletableFuture<BigInteger> getBlockNumber();
+	
+	public CompletableFuture<BigInteger> getGasPriceWei();
+	
+	public CompletableFuture<BigInteger> getBalanceWei(String _address);
+	
+	public CompletableFuture<BigInteger> getTransactionCount(String _address);
+	
+	// empty while the transaction is pending
+	public CompletableFuture<Optional<TransactionReceipt>> getTransactionReceipt(String transactionHash);
+	
+	// any web3j request, the raw response
+	public <T extends Response<?>> CompletableFuture<T> add(Request<?, T> request);
+	
+	public int size();
+	
+	public void send() throws IOException;
+}
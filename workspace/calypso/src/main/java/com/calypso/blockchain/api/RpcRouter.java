@@ -0,0 +1,395 @@
+package com.calypso.blockchain.api;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.calypso.blockchain.objects.ChainsList;
+
+public class RpcRouter {
+
+	// every endpoint of a chain behind one JSON-RPC send, instead of one fixed node.
+	//
+	// each endpoint keeps its last WINDOW latencies and outcomes. a request goes to the
+	// healthy endpoint with the lowest p50, an endpoint with no samples yet is tried first.
+	// a failure (connection, timeout, 5xx, 429) counts as an error and the same payload
+	// goes to the next best endpoint, each endpoint once per request. after FAILURES_TO_COOL
+	// failures in a row, or with an error rate over MAX_ERROR_RATE, an endpoint cools down,
+	// twice as long every time up to MAX_COOLDOWN, then it is tried again.
+	// 1 in EXPLORE_EVERY requests goes to another healthy endpoint, so the latencies of the
+	// ones not picked stay current. a 4xx other than 429 is the request's fault, no failover
+	// and no sample. a 200 that carries a JSON-RPC rate limit error counts as a 429.
+	//
+	// the payload is opaque, a single call or a batch array alike, only scanned for WRITE_METHODS.
+	// a payload that sends a transaction is not idempotent: after a timeout or a 5xx the node
+	// may have it already, posting it again elsewhere answers "already known" or "nonce too low".
+	// it only fails over when the post surely did not arrive (no connection, or a 429), any
+	// other failure goes back to the caller, who can look the transaction up
+
+	public static final int WINDOW = 256;
+
+	public static final double MAX_ERROR_RATE = 0.5;
+
+	// samples before the error rate counts
+	public static final int MIN_SAMPLES = 8;
+
+	public static final int FAILURES_TO_COOL = 3;
+
+	public static final long BASE_COOLDOWN_MILLIS = 1000;
+	public static final long MAX_COOLDOWN_MILLIS = 60000;
+
+	public static final int EXPLORE_EVERY = 20;
+
+	public static final List<String> WRITE_METHODS = List.of("eth_sendRawTransaction", "eth_sendTransaction",
+			"eth_sendBundle", "eth_sendPrivateTransaction");
+
+	// the error codes and messages of the providers for a rate limit inside a 200
+	private static final List<Integer> RATE_LIMIT_CODES = List.of(429, -32005, -32007);
+	private static final List<String> RATE_LIMIT_MESSAGES = List.of("rate limit", "too many requests",
+			"request limit", "capacity");
+
+	private static final Pattern ERROR_CODE = Pattern.compile("\"code\"\\s*:\\s*(-?\\d+)");
+
+	// how a payload reaches a url. throws StatusException for an http error status
+	public interface Transport {
+		public String post(String url, String payload) throws IOException;
+	}
+
+	public static class StatusException extends IOException {
+
+		private static final long serialVersionUID = 1L;
+
+		public final int status;
+
+		public StatusException(String url, int status) {
+			super(url + " answered http " + status);
+			this.status = status;
+		}
+
+		// the node is busy or down, another one may take it
+		public boolean isRetryable() {
+			return status >= 500 || status == 429;
+		}
+	}
+
+	public static class Endpoint {
+
+		public final String name;
+		public final String url;
+
+		private final long[] latencies = new long[WINDOW];
+		private final boolean[] errors = new boolean[WINDOW];
+		private int samples = 0;
+		private int next = 0;
+		private int errorCount = 0;
+
+		private long p50 = 0;
+		private long p99 = 0;
+
+		private int consecutiveFailures = 0;
+		private long cooldownMillis = 0;
+		private long coolUntil = 0;
+
+		private final AtomicLong requests = new AtomicLong();
+
+		public Endpoint(String name, String url) {
+			this.name = name;
+			this.url = url;
+		}
+
+		synchronized void record(long nanos, boolean error) {
+
+			if (samples == WINDOW && errors[next]) errorCount--;
+
+			latencies[next] = nanos;
+			errors[next] = error;
+
+			if (error) errorCount++;
+
+			next = (next + 1) % WINDOW;
+			samples = Math.min(WINDOW, samples + 1);
+
+			if (error) {
+
+				boolean failing = samples >= MIN_SAMPLES && (double) errorCount / samples > MAX_ERROR_RATE;
+
+				if (++consecutiveFailures >= FAILURES_TO_COOL || failing) {
+					cooldownMillis = (cooldownMillis == 0) ? BASE_COOLDOWN_MILLIS : Math.min(MAX_COOLDOWN_MILLIS, 2 * cooldownMillis);
+					coolUntil = System.currentTimeMillis() + cooldownMillis;
+					consecutiveFailures = 0;
+				}
+
+			} else {
+				consecutiveFailures = 0;
+				cooldownMillis = 0;
+			}
+
+			percentiles();
+		}
+
+		// of the successful calls, a failure fast or slow says nothing of the node's speed
+		private void percentiles() {
+
+			long[] ok = new long[samples];
+			int count = 0;
+
+			for (int i = 0; i < samples; i++) {
+				if (!errors[i]) ok[count++] = latencies[i];
+			}
+
+			if (count == 0) return;
+
+			Arrays.sort(ok, 0, count);
+
+			p50 = ok[(count - 1) / 2];
+			p99 = ok[Math.min(count - 1, (int) Math.ceil(0.99 * count) - 1)];
+		}
+
+		public synchronized long getP50Nanos() {
+			return p50;
+		}
+
+		public synchronized long getP99Nanos() {
+			return p99;
+		}
+
+		public synchronized double getErrorRate() {
+			return (samples == 0) ? 0 : (double) errorCount / samples;
+		}
+
+		public synchronized int getSamples() {
+			return samples;
+		}
+
+		public long getRequests() {
+			return requests.get();
+		}
+
+		public synchronized boolean isHealthy(long now) {
+			return now >= coolUntil;
+		}
+
+		// lower is better, no samples first. the p50 over the share of calls that work,
+		// what a request costs with its failovers
+		synchronized long score() {
+
+			if (samples == 0) return 0;
+			if (samples == errorCount) return Long.MAX_VALUE;
+
+			return (long) (p50 / Math.max(0.05, 1 - (double) errorCount / samples));
+		}
+
+		@Override
+		public synchronized String toString() {
+			return String.format("%s p50 %.2f ms p99 %.2f ms errors %.1f%% requests %d%s", name, p50 / 1e6, p99 / 1e6,
+					100 * getErrorRate(), requests.get(), (System.currentTimeMillis() < coolUntil) ? " (cooling)" : "");
+		}
+	}
+
+	private final List<Endpoint> endpoints;
+
+	private final Transport transport;
+
+	private final AtomicLong routed = new AtomicLong();
+
+	public RpcRouter(List<Endpoint> endpoints, Transport transport) {
+
+		if (endpoints.isEmpty()) throw new IllegalArgumentException("No endpoints to route to");
+
+		this.endpoints = new ArrayList<Endpoint>(endpoints);
+		this.transport = transport;
+	}
+
+	public RpcRouter(List<Endpoint> endpoints) {
+		this(endpoints, httpTransport());
+	}
+
+	// every node of OnChainNodeList on the chain
+	public static List<Endpoint> endpointsOf(ChainsList chain) {
+
+		List<Endpoint> endpoints = new ArrayList<Endpoint>();
+
+		for (OnChainNodeList node : OnChainNodeList.allOfChain(chain)) {
+			endpoints.add(new Endpoint(node.name(), node.URL));
+		}
+
+		return endpoints;
+	}
+
+	public List<Endpoint> getEndpoints() {
+		return endpoints;
+	}
+
+	public String send(String payload) throws IOException {
+
+		List<Endpoint> order = order();
+
+		boolean idempotent = isIdempotent(payload);
+
+		IOException failure = null;
+
+		for (Endpoint endpoint : order) {
+
+			endpoint.requests.incrementAndGet();
+
+			long start = System.nanoTime();
+
+			try {
+
+				String response = transport.post(endpoint.url, payload);
+
+				// refused before it ran, like a 429, safe to send elsewhere. in a batch with a
+				// transaction the other calls may have run, the caller gets the answer as it is
+				if (isRateLimited(response) && (idempotent || !response.stripLeading().startsWith("["))) {
+					endpoint.record(System.nanoTime() - start, true);
+					failure = new StatusException(endpoint.url, 429);
+					continue;
+				}
+
+				endpoint.record(System.nanoTime() - start, false);
+
+				return response;
+
+			} catch (StatusException e) {
+
+				// the request is wrong, says nothing of the node
+				if (!e.isRetryable()) throw e;
+
+				endpoint.record(System.nanoTime() - start, true);
+				failure = e;
+
+				if (!idempotent && e.status != 429) throw e;
+
+			} catch (IOException e) {
+
+				endpoint.record(System.nanoTime() - start, true);
+				failure = e;
+
+				if (!idempotent && !notDelivered(e)) throw e;
+			}
+		}
+
+		throw new IOException("Every endpoint failed, the last with: " + failure.getMessage(), failure);
+	}
+
+	public static boolean isIdempotent(String payload) {
+
+		for (String method : WRITE_METHODS) {
+			if (payload.contains("\"" + method + "\"")) return false;
+		}
+
+		return true;
+	}
+
+	// a JSON-RPC error of a rate limit, in a single answer or in one of a batch
+	public static boolean isRateLimited(String response) {
+
+		if (response == null || !response.contains("\"error\"")) return false;
+
+		Matcher code = ERROR_CODE.matcher(response);
+
+		while (code.find()) {
+			try {
+				if (RATE_LIMIT_CODES.contains(Integer.valueOf(code.group(1)))) return true;
+			} catch (NumberFormatException e) {
+				// not a code of ours
+			}
+		}
+
+		String text = response.toLowerCase(Locale.ROOT);
+
+		for (String message : RATE_LIMIT_MESSAGES) {
+			if (text.contains(message)) return true;
+		}
+
+		return false;
+	}
+
+	// the connection was never made, the node cannot have the payload
+	private static boolean notDelivered(IOException e) {
+		return e instanceof ConnectException || e instanceof UnknownHostException;
+	}
+
+	// healthy by score, the unhealthy after them as a last resort
+	private List<Endpoint> order() {
+
+		long now = System.currentTimeMillis();
+
+		List<Endpoint> healthy = new ArrayList<Endpoint>();
+		List<Endpoint> unhealthy = new ArrayList<Endpoint>();
+
+		for (Endpoint endpoint : endpoints) {
+			(endpoint.isHealthy(now) ? healthy : unhealthy).add(endpoint);
+		}
+
+		healthy.sort((a, b) -> Long.compare(a.score(), b.score()));
+		unhealthy.sort((a, b) -> Long.compare(a.score(), b.score()));
+
+		// now and then another healthy one first, to keep its numbers fresh
+		if (healthy.size() > 1 && routed.incrementAndGet() % EXPLORE_EVERY == 0) {
+			Endpoint explored = healthy.remove(1 + ThreadLocalRandom.current().nextInt(healthy.size() - 1));
+			healthy.add(0, explored);
+		}
+
+		healthy.addAll(unhealthy);
+
+		return healthy;
+	}
+
+	// the JDK client, pooled keep-alive connections and h2 when the node offers it
+	public static Transport httpTransport() {
+
+		HttpClient client = HttpClient.newBuilder()
+				.connectTimeout(Duration.ofSeconds(5))
+				.executor(Executors.newVirtualThreadPerTaskExecutor())
+				.build();
+
+		return (url, payload) -> {
+
+			HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+					.timeout(Duration.ofSeconds(30))
+					.header("Content-Type", "application/json")
+					.POST(HttpRequest.BodyPublishers.ofString(payload))
+					.build();
+
+			HttpResponse<String> response;
+
+			try {
+				response = client.send(request, HttpResponse.BodyHandlers.ofString());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while calling " + url, e);
+			}
+
+			if (response.statusCode() / 100 != 2) throw new StatusException(url, response.statusCode());
+
+			return response.body();
+		};
+	}
+
+	public String stats() {
+
+		StringBuilder stats = new StringBuilder();
+
+		for (Endpoint endpoint : endpoints) {
+			stats.append(endpoint).append('\n');
+		}
+
+		return stats.toString();
+	}
+
+}
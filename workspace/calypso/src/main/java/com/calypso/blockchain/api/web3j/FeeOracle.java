@@ -0,0 +1,307 @@
+package com.calypso.blockchain.api.web3j;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthBlock;
+import org.web3j.protocol.core.methods.response.EthFeeHistory;
+import org.web3j.protocol.core.methods.response.EthGasPrice;
+
+import com.calypso.blockchain.api.RpcBatch;
+
+public class FeeOracle {
+
+	// the fees of the next block from memory, so no fee call sits on the send path.
+	//
+	// a virtual thread watches eth_blockNumber. on every new block one batch brings the
+	// header, eth_feeHistory of the last HISTORY_BLOCKS blocks and eth_gasPrice. from there:
+	//
+	//   baseFee        the header of the block
+	//   nextBaseFee    EIP-1559 on the header: baseFee * (1 + (gasUsed - target) / target / 8),
+	//                  target = gasLimit / 2
+	//   priority fee   the 10th, 50th and 90th percentile of the tips paid, median over the blocks
+	//
+	// a chain without base fee (legacy) serves eth_gasPrice, with no priority fee.
+	// fees older than maxAgeMillis (the node stopped answering the thread, or the thread
+	// is gone) are not served, getFees reads them again on the caller's thread
+
+	public static final int HISTORY_BLOCKS = 20;
+
+	public static final double[] PERCENTILES = {10, 50, 90};
+
+	public static final int P10 = 0;
+	public static final int P50 = 1;
+	public static final int P90 = 2;
+
+	public static final long DEFAULT_POLL_MILLIS = 1000;
+
+	// a few mainnet blocks
+	public static final long DEFAULT_MAX_AGE_MILLIS = 30000;
+
+	private static final BigInteger ELASTICITY = BigInteger.valueOf(2);
+	private static final BigInteger CHANGE_DENOMINATOR = BigInteger.valueOf(8);
+
+	// what a block asks, read only
+	public static class Fees {
+
+		public final long block;
+		public final BigInteger baseFee;		// null on a legacy chain
+		public final BigInteger nextBaseFee;	// null on a legacy chain
+		public final BigInteger[] priorityFees;	// by P10, P50, P90
+		public final BigInteger gasPrice;		// eth_gasPrice of the node
+		public final long readMillis;			// when they were read
+
+		Fees(long block, BigInteger baseFee, BigInteger nextBaseFee, BigInteger[] priorityFees, BigInteger gasPrice) {
+			this.block = block;
+			this.baseFee = baseFee;
+			this.nextBaseFee = nextBaseFee;
+			this.priorityFees = priorityFees;
+			this.gasPrice = gasPrice;
+			this.readMillis = System.currentTimeMillis();
+		}
+
+		public long getAgeMillis() {
+			return System.currentTimeMillis() - readMillis;
+		}
+
+		public boolean isEip1559() {
+			return nextBaseFee != null;
+		}
+
+		public BigInteger getPriorityFee(int percentile) {
+			return priorityFees[percentile];
+		}
+
+		// a legacy price that gets in the next block: next base fee plus the median tip
+		public BigInteger getGasPriceWei() {
+			return isEip1559() ? nextBaseFee.add(priorityFees[P50]) : gasPrice;
+		}
+
+		// room for two full blocks of base fee rises, the usual wallet cap
+		public BigInteger getMaxFeePerGas(BigInteger maxPriorityFeePerGas) {
+			return isEip1559() ? nextBaseFee.multiply(BigInteger.TWO).add(maxPriorityFeePerGas) : gasPrice;
+		}
+
+		@Override
+		public String toString() {
+			return "Fees(block " + block + ", base " + baseFee + ", next " + nextBaseFee
+					+ ", tips " + priorityFees[P10] + "/" + priorityFees[P50] + "/" + priorityFees[P90]
+					+ ", gasPrice " + gasPrice + ")";
+		}
+	}
+
+	private final Web3jConnect connection;
+
+	private long pollMillis = DEFAULT_POLL_MILLIS;
+
+	private long maxAgeMillis = DEFAULT_MAX_AGE_MILLIS;
+
+	private volatile Fees fees = null;
+
+	private Thread thread = null;
+	private volatile boolean stopped = false;
+
+	public FeeOracle(Web3jConnect connection) {
+		this.connection = connection;
+	}
+
+	public void setPollMillis(long pollMillis) {
+		this.pollMillis = pollMillis;
+	}
+
+	public void setMaxAgeMillis(long maxAgeMillis) {
+		this.maxAgeMillis = maxAgeMillis;
+	}
+
+	// the fees of the last block seen. the first call, and a call after the fees went stale, waits for them
+	public Fees getFees() throws IOException {
+
+		Fees current = fees;
+
+		if (current != null && current.getAgeMillis() <= maxAgeMillis) return current;
+
+		synchronized (this) {
+
+			if (fees == null || fees.getAgeMillis() > maxAgeMillis) fees = compute(connection.getBlockNumber().longValue());
+
+			start();
+
+			return fees;
+		}
+	}
+
+	public BigInteger getGasPriceWei() throws IOException {
+		return getFees().getGasPriceWei();
+	}
+
+	public BigInteger getNextBaseFee() throws IOException {
+		return getFees().nextBaseFee;
+	}
+
+	public BigInteger getMaxPriorityFeePerGas() throws IOException {
+		return getFees().getPriorityFee(P50);
+	}
+
+	public BigInteger getMaxFeePerGas() throws IOException {
+
+		Fees current = getFees();
+
+		return current.getMaxFeePerGas(current.getPriorityFee(P50));
+	}
+
+	private synchronized void start() {
+
+		if (thread != null || stopped) return;
+
+		thread = Thread.ofVirtual().name("fee-oracle").start(this::run);
+	}
+
+	public void stop() {
+		stopped = true;
+		if (thread != null) thread.interrupt();
+	}
+
+	private void run() {
+
+		while (!stopped) {
+
+			try {
+
+				long block = connection.getBlockNumber().longValue();
+
+				// the same block again still refreshes the age once it is half gone
+				Fees current = fees;
+
+				if (current == null || block > current.block || current.getAgeMillis() > maxAgeMillis / 2) fees = compute(block);
+
+				Thread.sleep(pollMillis);
+
+			} catch (InterruptedException e) {
+				break;
+			} catch (IOException | RuntimeException e) {
+				// the last fees stay, the next block tries again
+				System.err.println("FeeOracle: " + e.getMessage());
+				try {
+					Thread.sleep(pollMillis);
+				} catch (InterruptedException interrupted) {
+					break;
+				}
+			}
+		}
+	}
+
+	// header, fee history and gas price of the block, one round trip
+	private Fees compute(long block) throws IOException {
+
+		List<Double> percentiles = new ArrayList<Double>();
+		for (double percentile : PERCENTILES) percentiles.add(percentile);
+
+		RpcBatch batch = connection.newBatch();
+
+		CompletableFuture<EthBlock> header = batch.add(connection.getWeb3j().ethGetBlockByNumber(DefaultBlockParameterName.LATEST, false));
+		CompletableFuture<EthFeeHistory> history = batch.add(connection.getWeb3j().ethFeeHistory(HISTORY_BLOCKS, DefaultBlockParameterName.LATEST, percentiles));
+		CompletableFuture<EthGasPrice> gasPrice = batch.add(connection.getWeb3j().ethGasPrice());
+
+		batch.send();
+
+		EthBlock.Block latest = join(header).getBlock();
+		BigInteger price = join(gasPrice).getGasPrice();
+
+		if (latest == null) throw new IOException("No header for block " + block);
+
+		BigInteger[] tips = {BigInteger.ZERO, BigInteger.ZERO, BigInteger.ZERO};
+
+		BigInteger baseFee = null;
+		BigInteger nextBaseFee = null;
+
+		try {
+			baseFee = latest.getBaseFeePerGas();
+		} catch (RuntimeException e) {
+			// no baseFeePerGas in a legacy header
+		}
+
+		if (baseFee != null) {
+
+			nextBaseFee = nextBaseFee(baseFee, latest.getGasUsed(), latest.getGasLimit());
+
+			EthFeeHistory feeHistory = history.isCompletedExceptionally() ? null : history.join();
+
+			// a node without eth_feeHistory leaves the tips at zero
+			if (feeHistory != null && !feeHistory.hasError() && feeHistory.getFeeHistory().getReward() != null) {
+				tips = medians(feeHistory.getFeeHistory().getReward());
+			}
+		}
+
+		return new Fees(latest.getNumber().longValue(), baseFee, nextBaseFee, tips, price);
+	}
+
+	// EIP-1559 base fee of the block after the one with these numbers
+	public static BigInteger nextBaseFee(BigInteger baseFee, BigInteger gasUsed, BigInteger gasLimit) {
+
+		BigInteger target = gasLimit.divide(ELASTICITY);
+
+		if (target.signum() == 0 || gasUsed.equals(target)) return baseFee;
+
+		if (gasUsed.compareTo(target) > 0) {
+
+			BigInteger delta = baseFee.multiply(gasUsed.subtract(target)).divide(target).divide(CHANGE_DENOMINATOR);
+
+			return baseFee.add(delta.max(BigInteger.ONE));
+		}
+
+		BigInteger delta = baseFee.multiply(target.subtract(gasUsed)).divide(target).divide(CHANGE_DENOMINATOR);
+
+		return baseFee.subtract(delta);
+	}
+
+	// per percentile, the median over the blocks. empty blocks report zero tips, they are left out
+	private static BigInteger[] medians(List<List<BigInteger>> rewards) {
+
+		BigInteger[] medians = new BigInteger[PERCENTILES.length];
+
+		for (int percentile = 0; percentile < PERCENTILES.length; percentile++) {
+
+			List<BigInteger> values = new ArrayList<BigInteger>();
+
+			for (List<BigInteger> block : rewards) {
+				if (block.size() > percentile && block.get(percentile).signum() > 0) values.add(block.get(percentile));
+			}
+
+			if (values.isEmpty()) {
+				medians[percentile] = BigInteger.ZERO;
+				continue;
+			}
+
+			Collections.sort(values);
+
+			medians[percentile] = values.get(values.size() / 2);
+		}
+
+		return medians;
+	}
+
+	private static <T extends Response<?>> T join(CompletableFuture<T> future) throws IOException {
+
+		try {
+			T response = future.get();
+
+			if (response.hasError()) throw new IOException(response.getError().getMessage());
+
+			return response;
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while reading fees", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Failed to read fees", e.getCause());
+		}
+	}
+
+}
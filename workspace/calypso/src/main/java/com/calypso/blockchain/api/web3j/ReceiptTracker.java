@@ -0,0 +1,230 @@
+package com.calypso.blockchain.api.web3j;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+
+import com.calypso.blockchain.api.RpcBatch;
+
+public class ReceiptTracker {
+
+	// the receipts of every transaction in flight on one thread: it wakes when the chain has
+	// a new block and asks for all the outstanding receipts in one batch, the futures of the
+	// mined ones complete. a hash just registered is asked at the next wake even without a
+	// new block, it could be in the current one already.
+	//
+	// the thread parks while nothing is pending. a transaction not mined within its timeout
+	// completes with a TimeoutException, the tracker forgets it. once stopped, or interrupted,
+	// a tracker cancels what it still holds and fails every new track, it does not restart
+
+	public static final long DEFAULT_POLL_MILLIS = 1000;
+
+	private final Web3jConnect connection;
+
+	private long pollMillis = DEFAULT_POLL_MILLIS;
+
+	private final ConcurrentHashMap<String, Pending> pending = new ConcurrentHashMap<String, Pending>();
+
+	private final Object wake = new Object();
+
+	private Thread thread = null;
+
+	private volatile boolean fresh = false;
+	private volatile boolean stopped = false;
+
+	private long lastBlock = -1;
+
+	// batches sent, for the stats
+	private long batches = 0;
+
+	private static class Pending {
+
+		final CompletableFuture<TransactionReceipt> receipt = new CompletableFuture<TransactionReceipt>();
+		final long deadline;
+
+		Pending(long deadline) {
+			this.deadline = deadline;
+		}
+	}
+
+	public ReceiptTracker(Web3jConnect connection) {
+		this.connection = connection;
+	}
+
+	public void setPollMillis(long pollMillis) {
+		this.pollMillis = pollMillis;
+	}
+
+	public int getPendingCount() {
+		return pending.size();
+	}
+
+	public synchronized long getBatches() {
+		return batches;
+	}
+
+	public boolean isStopped() {
+		return stopped;
+	}
+
+	// the receipt of the transaction once mined. the same hash twice shares the future
+	public CompletableFuture<TransactionReceipt> track(String transactionHash, long timeoutMillis) {
+
+		if (stopped) {
+			return CompletableFuture.failedFuture(new IllegalStateException("ReceiptTracker stopped"));
+		}
+
+		Pending tracked = pending.computeIfAbsent(transactionHash,
+				hash -> new Pending(System.currentTimeMillis() + timeoutMillis));
+
+		fresh = true;
+
+		start();
+
+		synchronized (wake) {
+			wake.notifyAll();
+		}
+
+		return tracked.receipt;
+	}
+
+	private synchronized void start() {
+
+		if (thread != null || stopped) return;
+
+		thread = Thread.ofVirtual().name("receipt-tracker").start(this::run);
+	}
+
+	public void stop() {
+
+		stopped = true;
+
+		synchronized (wake) {
+			wake.notifyAll();
+		}
+
+		cancelPending();
+	}
+
+	private void cancelPending() {
+		for (String hash : pending.keySet()) {
+			Pending tracked = pending.remove(hash);
+			if (tracked != null) tracked.receipt.cancel(false);
+		}
+	}
+
+	private void run() {
+
+		while (!stopped) {
+
+			try {
+
+				synchronized (wake) {
+					while (pending.isEmpty() && !stopped) wake.wait();
+				}
+
+				if (stopped) break;
+
+				long block = connection.getBlockNumber().longValue();
+
+				if (block > lastBlock || fresh) {
+
+					// cleared first, a track during the fetch asks again
+					fresh = false;
+
+					fetch();
+
+					// only once the batch went through, a failed one is asked again on the next wake
+					lastBlock = block;
+				}
+
+				expire();
+
+				Thread.sleep(pollMillis);
+
+			} catch (InterruptedException e) {
+				stopped = true;
+			} catch (IOException e) {
+				// the node is down for a moment, the same receipts on the next wake
+				System.err.println("ReceiptTracker: " + e.getMessage());
+				sleep();
+			} catch (RuntimeException e) {
+				System.err.println("ReceiptTracker: " + e);
+				sleep();
+			}
+		}
+
+		// nobody fetches them any more, a track that raced the stop included
+		cancelPending();
+	}
+
+	// all the pending receipts, one round trip
+	private void fetch() throws IOException {
+
+		RpcBatch batch = connection.newBatch();
+
+		Map<String, CompletableFuture<Optional<TransactionReceipt>>> asked = new HashMap<String, CompletableFuture<Optional<TransactionReceipt>>>();
+
+		for (String hash : pending.keySet()) {
+			asked.put(hash, batch.getTransactionReceipt(hash));
+		}
+
+		if (asked.isEmpty()) return;
+
+		synchronized (this) {
+			batches++;
+		}
+
+		batch.send();
+
+		for (String hash : asked.keySet()) {
+
+			CompletableFuture<Optional<TransactionReceipt>> answer = asked.get(hash);
+
+			// an error on a single receipt is asked again with the next block
+			if (answer.isCompletedExceptionally()) continue;
+
+			Optional<TransactionReceipt> receipt = answer.getNow(Optional.empty());
+
+			if (receipt.isEmpty()) continue;
+
+			Pending tracked = pending.remove(hash);
+
+			if (tracked != null) tracked.receipt.complete(receipt.get());
+		}
+	}
+
+	private void expire() {
+
+		long now = System.currentTimeMillis();
+
+		for (String hash : pending.keySet()) {
+
+			Pending tracked = pending.get(hash);
+
+			if (tracked != null && now > tracked.deadline && pending.remove(hash, tracked)) {
+				tracked.receipt.completeExceptionally(new TimeoutException("No receipt for " + hash + " by block " + lastBlock));
+			}
+		}
+	}
+
+	private void sleep() {
+		try {
+			Thread.sleep(pollMillis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			stopped = true;
+		}
+	}
+
+	public long getLastBlock() {
+		return lastBlock;
+	}
+
+}
@@ -0,0 +1,62 @@
+package com.calypso.blockchain.api.web3j;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.web3j.protocol.Service;
+
+import com.calypso.blockchain.api.RpcRouter;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+public class RoutedService extends Service {
+
+	// web3j over an RpcRouter: every request and batch of a Web3j built on this goes to the
+	// fastest healthy endpoint of the chain and fails over to the next. the posts go through
+	// one tuned OkHttpClient of RpcTransport
+
+	private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+	private final RpcRouter router;
+
+	public RoutedService(RpcRouter router) {
+		super(false);
+		this.router = router;
+	}
+
+	public RpcRouter getRouter() {
+		return router;
+	}
+
+	@Override
+	protected InputStream performIO(String payload) throws IOException {
+		return new ByteArrayInputStream(router.send(payload).getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public void close() throws IOException {
+	}
+
+	// the router's Transport on OkHttp
+	public static RpcRouter.Transport okHttpTransport(OkHttpClient client) {
+
+		return (url, payload) -> {
+
+			Request request = new Request.Builder().url(url).post(RequestBody.create(payload, JSON)).build();
+
+			try (Response response = client.newCall(request).execute()) {
+
+				if (!response.isSuccessful()) throw new RpcRouter.StatusException(url, response.code());
+
+				return response.body().string();
+			}
+		};
+	}
+
+}
@@ -0,0 +1,193 @@
+package com.calypso.blockchain.api.web3j;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.http.HttpService;
+
+import com.calypso.blockchain.api.OnChainNodeList;
+import com.calypso.blockchain.api.RpcRouter;
+import com.calypso.blockchain.objects.ChainsList;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+public class RpcTransport {
+
+	// one tuned OkHttpClient, HttpService and Web3j per node of OnChainNodeList, shared by
+	// every Web3jConnect of that node. the default HttpService builds its own client with
+	// 5 idle connections and 5 requests per host, so concurrent eth_calls queued up behind
+	// each other and every new Web3jConnect opened its connections again.
+	//
+	// the settings of a node are read when its client is built, configure() before the
+	// first connect, or it closes the old client and the next connect builds a new one.
+	// the routed Web3j of a chain has one client for all its nodes, configured the same way
+	// through configure(chain, settings)
+
+	public static class Settings {
+
+		public int maxIdleConnections = 32;
+		public long keepAliveSeconds = 300;
+
+		// in flight at once, per node
+		public int maxRequests = 256;
+		public int maxRequestsPerHost = 64;
+
+		// h2 over TLS when the node offers it, many calls on one connection
+		public boolean http2 = true;
+
+		public long connectTimeoutMillis = 5000;
+		public long readTimeoutMillis = 30000;
+		public long writeTimeoutMillis = 10000;
+
+		// 0 for none, the read timeout still holds
+		public long callTimeoutMillis = 0;
+
+		public Settings() {
+		}
+
+		public Settings(Settings other) {
+			this.maxIdleConnections = other.maxIdleConnections;
+			this.keepAliveSeconds = other.keepAliveSeconds;
+			this.maxRequests = other.maxRequests;
+			this.maxRequestsPerHost = other.maxRequestsPerHost;
+			this.http2 = other.http2;
+			this.connectTimeoutMillis = other.connectTimeoutMillis;
+			this.readTimeoutMillis = other.readTimeoutMillis;
+			this.writeTimeoutMillis = other.writeTimeoutMillis;
+			this.callTimeoutMillis = other.callTimeoutMillis;
+		}
+	}
+
+	private static final ConcurrentHashMap<OnChainNodeList, Settings> SETTINGS = new ConcurrentHashMap<OnChainNodeList, Settings>();
+	private static final ConcurrentHashMap<OnChainNodeList, RpcTransport> TRANSPORTS = new ConcurrentHashMap<OnChainNodeList, RpcTransport>();
+	
+	// every node of a chain behind one RpcRouter, see routed()
+	private static final ConcurrentHashMap<ChainsList, Settings> ROUTED_SETTINGS = new ConcurrentHashMap<ChainsList, Settings>();
+	private static final ConcurrentHashMap<ChainsList, Web3j> ROUTED = new ConcurrentHashMap<ChainsList, Web3j>();
+	private static final ConcurrentHashMap<ChainsList, RpcRouter> ROUTERS = new ConcurrentHashMap<ChainsList, RpcRouter>();
+	private static final ConcurrentHashMap<ChainsList, OkHttpClient> ROUTED_CLIENTS = new ConcurrentHashMap<ChainsList, OkHttpClient>();
+
+	private final OnChainNodeList node;
+	private final OkHttpClient client;
+	private final HttpService service;
+	private final Web3j web3;
+
+	private RpcTransport(OnChainNodeList node, Settings settings) {
+
+		this.node = node;
+		this.client = buildClient(settings);
+		this.service = new HttpService(node.URL, client);
+		this.web3 = Web3j.build(service);
+	}
+
+	public static RpcTransport of(OnChainNodeList node) {
+		return TRANSPORTS.computeIfAbsent(node, n -> new RpcTransport(n, getSettings(n)));
+	}
+
+	// a Web3j over all the nodes of the chain, latency aware with failover
+	public static Web3j routed(ChainsList chain) {
+		return ROUTED.computeIfAbsent(chain, c -> Web3j.build(new RoutedService(getRouter(c))));
+	}
+	
+	public static RpcRouter getRouter(ChainsList chain) {
+		return ROUTERS.computeIfAbsent(chain, c -> {
+			OkHttpClient client = ROUTED_CLIENTS.computeIfAbsent(c, k -> buildClient(getSettings(k)));
+			return new RpcRouter(RpcRouter.endpointsOf(c), RoutedService.okHttpTransport(client));
+		});
+	}
+	
+	// a copy, change it and hand it to configure
+	public static Settings getSettings(OnChainNodeList node) {
+		return new Settings(SETTINGS.getOrDefault(node, new Settings()));
+	}
+	
+	public static Settings getSettings(ChainsList chain) {
+		return new Settings(ROUTED_SETTINGS.getOrDefault(chain, new Settings()));
+	}
+	
+	// the routed Web3j of the chain, the Web3jConnects built before keep the old one
+	public static void configure(ChainsList chain, Settings settings) {
+
+		ROUTED_SETTINGS.put(chain, new Settings(settings));
+
+		ROUTED.remove(chain);
+		ROUTERS.remove(chain);
+
+		OkHttpClient old = ROUTED_CLIENTS.remove(chain);
+
+		if (old != null) close(old);
+	}
+
+	public static void configure(OnChainNodeList node, Settings settings) {
+
+		SETTINGS.put(node, new Settings(settings));
+
+		RpcTransport old = TRANSPORTS.remove(node);
+
+		// the Web3jConnects on the old one finish their calls, new ones take the new client
+		if (old != null) old.close();
+	}
+
+	public static OkHttpClient buildClient(Settings settings) {
+
+		Dispatcher dispatcher = new Dispatcher();
+		dispatcher.setMaxRequests(settings.maxRequests);
+		dispatcher.setMaxRequestsPerHost(settings.maxRequestsPerHost);
+
+		return new OkHttpClient.Builder()
+				.connectionPool(new ConnectionPool(settings.maxIdleConnections, settings.keepAliveSeconds, TimeUnit.SECONDS))
+				.dispatcher(dispatcher)
+				.protocols(settings.http2 ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1) : List.of(Protocol.HTTP_1_1))
+				.connectTimeout(settings.connectTimeoutMillis, TimeUnit.MILLISECONDS)
+				.readTimeout(settings.readTimeoutMillis, TimeUnit.MILLISECONDS)
+				.writeTimeout(settings.writeTimeoutMillis, TimeUnit.MILLISECONDS)
+				.callTimeout(settings.callTimeoutMillis, TimeUnit.MILLISECONDS)
+				.retryOnConnectionFailure(true)
+				.build();
+	}
+
+	public OnChainNodeList getNode() {
+		return node;
+	}
+
+	public OkHttpClient getClient() {
+		return client;
+	}
+
+	public HttpService getService() {
+		return service;
+	}
+
+	public Web3j getWeb3j() {
+		return web3;
+	}
+
+	// idle connections and dispatcher threads, after the calls in flight
+	private void close() {
+		close(client);
+	}
+
+	private static void close(OkHttpClient client) {
+		client.dispatcher().executorService().shutdown();
+		client.connectionPool().evictAll();
+	}
+
+	public static void shutdown() {
+		for (OnChainNodeList node : TRANSPORTS.keySet()) {
+			RpcTransport transport = TRANSPORTS.remove(node);
+			if (transport != null) transport.close();
+		}
+		for (ChainsList chain : ROUTED_CLIENTS.keySet()) {
+			ROUTED.remove(chain);
+			ROUTERS.remove(chain);
+			OkHttpClient client = ROUTED_CLIENTS.remove(chain);
+			if (client != null) close(client);
+		}
+	}
+
+}
@@ -5,16 +5,24 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.web3j.crypto.RawTransaction;
 import org.web3j.protocol.Web3j;
-import org.web3j.protocol.http.HttpService;
 import org.web3j.protocol.core.DefaultBlockParameterName;
 import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.methods.request.Transaction;
 import org.web3j.protocol.core.methods.response.EthBlockNumber;
+import org.web3j.protocol.core.methods.response.EthEstimateGas;
 import org.web3j.protocol.core.methods.response.EthGasPrice;
 import org.web3j.protocol.core.methods.response.EthGetBalance;
-import org.web3j.protocol.core.methods.response.EthGetTransactionReceipt;
 import org.web3j.protocol.core.methods.response.EthSendTransaction;
 import org.web3j.protocol.core.methods.response.TransactionReceipt;
 import org.web3j.protocol.core.methods.response.Web3ClientVersion;
@@ -22,14 +30,26 @@ import org.web3j.utils.Convert;
 
 import com.calypso.blockchain.api.OnChainNodeList;
 import com.calypso.blockchain.api.IOnChainObjectAPI;
+import com.calypso.blockchain.api.IOnChainObjectAsyncAPI;
+import com.calypso.blockchain.api.RpcBatch;
 import com.calypso.blockchain.objects.ChainsList;
 
 public class Web3jConnect implements IOnChainObjectAPI, 
+									 IOnChainObjectAsyncAPI,
 									 IWeb3jFriendly {
 	
 	private OnChainNodeList node = null;	// pick URL
+	private ChainsList routedChain = null;	// set when every node of the chain is behind a router
 	private Web3j web3;
 	
+	// the async calls of every connection, a virtual thread each
+	private static final ExecutorService ASYNC = Executors.newVirtualThreadPerTaskExecutor();
+	
+	// by node, or by chain for the routed connections, see key()
+	private static final ConcurrentHashMap<Object, ReceiptTracker> TRACKERS = new ConcurrentHashMap<Object, ReceiptTracker>();
+	private static final ConcurrentHashMap<Object, FeeOracle> FEE_ORACLES = new ConcurrentHashMap<Object, FeeOracle>();
+	
+	// waitForTransactionReceipt gives up after SLEEP_DURATION * ATTEMPTS ms
 	public final int SLEEP_DURATION = 15000;
 	public final int ATTEMPTS = 40;
 	
@@ -37,7 +57,7 @@ public class Web3jConnect implements IOnChainObjectAPI,
 		
 		this.node = OnChainNodeList.LOCAL_RPC;
 		
-		web3 = Web3j.build(new HttpService(node.URL));
+		web3 = RpcTransport.of(node).getWeb3j();
 		
 	}
 	
@@ -45,7 +65,20 @@ public class Web3jConnect implements IOnChainObjectAPI,
 		
 		this.node = _node;
 		
-		web3 = Web3j.build(new HttpService(node.URL));
+		// shared client and connections of the node, see RpcTransport
+		web3 = RpcTransport.of(node).getWeb3j();
+		
+	}
+	
+	// every node of the chain in OnChainNodeList behind an RpcRouter: each request goes
+	// to the fastest healthy one and fails over to the next
+	public Web3jConnect(ChainsList _chain) {
+		
+		// node only answers getNetwork, the calls go through the router
+		this.node = OnChainNodeList.valueOfChain(_chain);
+		this.routedChain = _chain;
+		
+		web3 = RpcTransport.routed(_chain);
 		
 	}
 	
@@ -64,9 +97,6 @@ public class Web3jConnect implements IOnChainObjectAPI,
 	
 	public String getClientVersion() throws IOException {
 		
-		web3 = Web3j.build(new HttpService("https://eth-sepolia.g.alchemy.com/v2/eJL1q2Fuwb94bHgnfERZxCNjP3AJKasH"));
-		
-		
 		Web3ClientVersion clientVersion = web3.web3ClientVersion().send();
 		
 		return clientVersion.getWeb3ClientVersion();
@@ -121,6 +151,83 @@ public class Web3jConnect implements IOnChainObjectAPI,
 		return this.getNetwork().name;
 	}
 	
+	// IOnChainObjectAsyncAPI, the blocking calls on virtual threads
+	
+	private static <T> CompletableFuture<T> async(Callable<T> call) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return call.call();
+			} catch (Exception e) {
+				throw new CompletionException(e);
+			}
+		}, ASYNC);
+	}
+	
+	@Override
+	public CompletableFuture<String> getClientVersionAsync() {
+		return async(this::getClientVersion);
+	}
+	
+	@Override
+	public CompletableFuture<ChainsList> getNetworkAsync() {
+		return async(this::getNetwork);
+	}
+	
+	@Override
+	public CompletableFuture<String> getNetworkToPlainStringAsync() {
+		return async(this::getNetworkToPlainString);
+	}
+	
+	@Override
+	public CompletableFuture<BigInteger> getBlockNumberAsync() {
+		return async(this::getBlockNumber);
+	}
+	
+	@Override
+	public CompletableFuture<BigInteger> getGasPriceWeiAsync() {
+		return async(this::getGasPriceWei);
+	}
+	
+	@Override
+	public CompletableFuture<BigDecimal> getGasPriceAsync() {
+		return async(this::getGasPrice);
+	}
+	
+	@Override
+	public CompletableFuture<String> getGasPriceToPlainStringAsync() {
+		return async(this::getGasPriceToPlainString);
+	}
+	
+	@Override
+	public CompletableFuture<BigInteger> getBalanceWeiAsync(String _address) {
+		return async(() -> getBalanceWei(_address));
+	}
+	
+	@Override
+	public CompletableFuture<BigDecimal> getBalanceAsync(String _address) {
+		return async(() -> getBalance(_address));
+	}
+	
+	@Override
+	public CompletableFuture<String> getBalanceToPlainStringAsync(String _address) {
+		return async(() -> getBalanceToPlainString(_address));
+	}
+	
+	@Override
+	public CompletableFuture<BigInteger> getTransactionCountAsync(String _address) {
+		return async(() -> web3.ethGetTransactionCount(_address, DefaultBlockParameterName.PENDING).send().getTransactionCount());
+	}
+	
+	@Override
+	public CompletableFuture<EthSendTransaction> ethSendRawTransactionAsync(String signedHexMessage) {
+		return async(() -> ethSendRawTransaction(signedHexMessage));
+	}
+	
+	@Override
+	public CompletableFuture<Optional<TransactionReceipt>> getTransactionReceiptAsync(String transactionHash) {
+		return async(() -> web3.ethGetTransactionReceipt(transactionHash).send().getTransactionReceipt());
+	}
+	
 	@Override
 	public RawTransaction createTransaction(long chainId, BigInteger nonce, BigInteger gasLimit, String to,
 			BigInteger value, String data, BigInteger maxPriorityFeePerGas, BigInteger maxFeePerGas) {
@@ -135,6 +242,23 @@ public class Web3jConnect implements IOnChainObjectAPI,
 		return null;
 	}
 
+	@Override
+	public RpcBatch newBatch() {
+		return new Web3jRpcBatch(web3);
+	}
+	
+	// eth_estimateGas of a call, a revert comes back as the IOException
+	public BigInteger estimateGas(String from, String to, BigInteger value, String data) throws IOException {
+		
+		EthEstimateGas estimate = web3.ethEstimateGas(new Transaction(from, null, null, null, to, value, data)).send();
+		
+		if (estimate.hasError()) {
+			throw new IOException("eth_estimateGas failed: " + estimate.getError().getMessage());
+		}
+		
+		return estimate.getAmountUsed();
+	}
+	
 	@Override
 	public EthSendTransaction ethSendRawTransaction(String signedHexMessage) throws IOException {
 		
@@ -197,45 +321,38 @@ getTransactionDetails(txHashes);
 	 */
 	
 	
-	  private Optional<TransactionReceipt> getTransactionReceipt(
-	            String transactionHash, int sleepDuration, int attempts) throws Exception {
-
-	        Optional<TransactionReceipt> receiptOptional =
-	                sendTransactionReceiptRequest(transactionHash);
-	        for (int i = 0; i < attempts; i++) {
-	            if (!receiptOptional.isPresent()) {
-	                Thread.sleep(sleepDuration);
-	                receiptOptional = sendTransactionReceiptRequest(transactionHash);
-	            } else {
-	                break;
-	            }
-	        }
-
-	        return receiptOptional;
-	    }
+	// the node, or the chain of a routed connection: a routed one does not share the
+	// tracker and the oracle of the single node its network comes from
+	private Object key() {
+		return (routedChain != null) ? routedChain : node;
+	}
+	
+	// the fees of the next block from memory, one oracle per node
+	public FeeOracle getFeeOracle() {
+		return FEE_ORACLES.computeIfAbsent(key(), n -> new FeeOracle(this));
+	}
+	
+	// one tracker per node, for every transaction waited on through its connections.
+	// a stopped tracker is replaced by a new one
+	public ReceiptTracker getReceiptTracker() {
+		return TRACKERS.compute(key(), (n, tracker) -> (tracker == null || tracker.isStopped()) ? new ReceiptTracker(this) : tracker);
+	}
+	
+	// completes when the transaction is mined, no thread waits for it
+	public CompletableFuture<TransactionReceipt> trackTransactionReceipt(String transactionHash) {
+		return getReceiptTracker().track(transactionHash, (long) SLEEP_DURATION * ATTEMPTS);
+	}
 	
 	public TransactionReceipt waitForTransactionReceipt(String transactionHash) throws Exception {
 
-        // to debug
-		Optional<TransactionReceipt> transactionReceiptOptional =
-                getTransactionReceipt(transactionHash, SLEEP_DURATION, ATTEMPTS);
-
-        if (!transactionReceiptOptional.isPresent()) {
-           throw new Exception();
-        }
-
-        return transactionReceiptOptional.get();
+		try {
+			// the tracker expires it by then, the bound only covers a tracker that died
+			return trackTransactionReceipt(transactionHash).get((long) SLEEP_DURATION * ATTEMPTS, TimeUnit.MILLISECONDS);
+		} catch (ExecutionException e) {
+			// the TimeoutException of the tracker, or the error of the node
+			throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+		}
     }
-	
-	 private Optional<TransactionReceipt> sendTransactionReceiptRequest(String transactionHash)
-	            throws Exception {
-		 
-		 // to test
-	        EthGetTransactionReceipt transactionReceipt =
-	                web3.ethGetTransactionReceipt(transactionHash).sendAsync().get();
-
-	        return transactionReceipt.getTransactionReceipt();
-	    }
 	 
 		public String getTransactionHash(TransactionReceipt receipt) throws IOException {
 			return receipt.getTransactionHash();
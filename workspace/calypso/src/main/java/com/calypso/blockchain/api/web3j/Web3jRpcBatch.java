@@ -0,0 +1,190 @@
+package com.calypso.blockchain.api.web3j;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.BatchRequest;
+import org.web3j.protocol.core.BatchResponse;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthBlockNumber;
+import org.web3j.protocol.core.methods.response.EthGasPrice;
+import org.web3j.protocol.core.methods.response.EthGetBalance;
+import org.web3j.protocol.core.methods.response.EthGetTransactionCount;
+import org.web3j.protocol.core.methods.response.EthGetTransactionReceipt;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+
+import com.calypso.blockchain.api.RpcBatch;
+
+public class Web3jRpcBatch implements RpcBatch {
+
+	// the requests of the batch go out through web3j's BatchRequest, one http POST per
+	// MAX_BATCH calls (the hosted nodes cap the array). web3j decodes the i-th response
+	// with the type of the i-th request, so they are matched by position and the JSON-RPC
+	// id is only checked: a node that reorders the array (the spec allows it) fails the
+	// calls that moved instead of handing them a response of the wrong class
+
+	public static final int MAX_BATCH = 500;
+
+	private Web3j web3;
+
+	private List<Request<?, ? extends Response<?>>> requests = new ArrayList<Request<?, ? extends Response<?>>>();
+	private List<CompletableFuture<Response<?>>> futures = new ArrayList<CompletableFuture<Response<?>>>();
+
+	public Web3jRpcBatch(Web3j web3) {
+		this.web3 = web3;
+	}
+
+	@Override
+	public CompletableFuture<BigInteger> getBlockNumber() {
+		return typed(web3.ethBlockNumber(), EthBlockNumber::getBlockNumber);
+	}
+
+	@Override
+	public CompletableFuture<BigInteger> getGasPriceWei() {
+		return typed(web3.ethGasPrice(), EthGasPrice::getGasPrice);
+	}
+
+	@Override
+	public CompletableFuture<BigInteger> getBalanceWei(String _address) {
+		return typed(web3.ethGetBalance(_address, DefaultBlockParameterName.LATEST), EthGetBalance::getBalance);
+	}
+
+	@Override
+	public CompletableFuture<BigInteger> getTransactionCount(String _address) {
+		return typed(web3.ethGetTransactionCount(_address, DefaultBlockParameterName.PENDING),
+				EthGetTransactionCount::getTransactionCount);
+	}
+
+	@Override
+	public CompletableFuture<Optional<TransactionReceipt>> getTransactionReceipt(String transactionHash) {
+		return typed(web3.ethGetTransactionReceipt(transactionHash), EthGetTransactionReceipt::getTransactionReceipt);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public synchronized <T extends Response<?>> CompletableFuture<T> add(Request<?, T> request) {
+
+		CompletableFuture<Response<?>> future = new CompletableFuture<Response<?>>();
+
+		requests.add(request);
+		futures.add(future);
+
+		return (CompletableFuture<T>) (CompletableFuture<?>) future;
+	}
+
+	// the value of the response, or the error of the node
+	private <T extends Response<?>, V> CompletableFuture<V> typed(Request<?, T> request, Function<T, V> value) {
+
+		return add(request).thenApply(response -> {
+
+			if (response.hasError()) {
+				throw new RpcException(request.getMethod(), response.getError());
+			}
+
+			return value.apply(response);
+		});
+	}
+
+	@Override
+	public synchronized int size() {
+		return requests.size();
+	}
+
+	// sends what was added so far, the batch is empty again after
+	@Override
+	public void send() throws IOException {
+
+		List<Request<?, ? extends Response<?>>> sending;
+		List<CompletableFuture<Response<?>>> waiting;
+
+		synchronized (this) {
+			sending = requests;
+			waiting = futures;
+			requests = new ArrayList<Request<?, ? extends Response<?>>>();
+			futures = new ArrayList<CompletableFuture<Response<?>>>();
+		}
+
+		IOException failure = null;
+
+		for (int from = 0; from < sending.size(); from += MAX_BATCH) {
+
+			int to = Math.min(sending.size(), from + MAX_BATCH);
+
+			try {
+				send(sending.subList(from, to), waiting.subList(from, to));
+			} catch (IOException | RuntimeException e) {
+
+				// an error object instead of the array fails in the decoder, not as an IOException
+				IOException chunkFailure = (e instanceof IOException) ? (IOException) e
+						: new IOException("Bad batch response: " + e.getMessage(), e);
+
+				for (CompletableFuture<Response<?>> future : waiting.subList(from, to)) {
+					future.completeExceptionally(chunkFailure);
+				}
+
+				if (failure == null) failure = chunkFailure;
+			}
+		}
+
+		if (failure != null) throw failure;
+	}
+
+	private void send(List<Request<?, ? extends Response<?>>> chunk, List<CompletableFuture<Response<?>>> waiting) throws IOException {
+
+		BatchRequest batch = web3.newBatch();
+
+		for (Request<?, ? extends Response<?>> request : chunk) {
+			batch.add(request);
+		}
+
+		BatchResponse response = batch.send();
+
+		List<? extends Response<?>> responses = response.getResponses();
+
+		for (int contRequest = 0; contRequest < chunk.size(); contRequest++) {
+
+			CompletableFuture<Response<?>> future = waiting.get(contRequest);
+
+			if (contRequest >= responses.size()) {
+				// calls the node left out of the answer
+				future.completeExceptionally(new IOException("No response in the batch"));
+				continue;
+			}
+
+			Response<?> single = responses.get(contRequest);
+
+			if (single.getId() != chunk.get(contRequest).getId()) {
+				future.completeExceptionally(new IOException("Batch response out of order, id " + single.getId()
+						+ " in the place of " + chunk.get(contRequest).getId()));
+				continue;
+			}
+
+			future.complete(single);
+		}
+	}
+
+	public static class RpcException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int code;
+
+		public RpcException(String method, Response.Error error) {
+			super(method + " failed: " + error.getMessage());
+			this.code = error.getCode();
+		}
+
+		public int getCode() {
+			return code;
+		}
+	}
+
+}
@@ -3,8 +3,10 @@ package com.calypso.blockchain.objects;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.security.SignatureException;
+import java.util.function.Function;
 
 import org.web3j.crypto.Credentials;
+import org.web3j.crypto.Hash;
 import org.web3j.crypto.RawTransaction;
 import org.web3j.crypto.TransactionEncoder;
 import org.web3j.crypto.Wallet;
@@ -15,6 +17,7 @@ import org.web3j.protocol.core.methods.response.TransactionReceipt;
 import org.web3j.utils.Convert;
 import org.web3j.utils.Numeric;
 
+import com.calypso.blockchain.api.web3j.FeeOracle;
 import com.calypso.blockchain.api.web3j.Web3jConnect;
 import com.calypso.blockchain.accounts.*;
 
@@ -22,6 +25,9 @@ public class Account extends OnChainObject {
 	
 	public static BigInteger GAS_LIMIT_TRANSFER_SEPOLIA = BigInteger.valueOf(6721975);
 	
+	// head room over eth_estimateGas, in percent, state can move between estimate and block
+	public static final int GAS_ESTIMATE_MARGIN = 20;
+	
 	// turn this into enum for each chai and tx type
 	// create object to subscribe to chain info like gasprice..
 	
@@ -30,18 +36,31 @@ public class Account extends OnChainObject {
 	private String privateKey = null;
 	private Credentials credentials;
 	
+	// nonces handed out locally, no eth_getTransactionCount before a send
+	private NonceManager nonces;
+	
 	public Account(Web3jConnect connection, String address, String _privateKey) throws IOException {
 		super(connection, address, OnChainObjectTypes.ACCOUNT);
 		
 		this.privateKey = _privateKey;
 		credentials = Credentials.create(privateKey);
 		
+		nonces = new NonceManager(connection, address);
 	}
 	
 	public Credentials getCredentials() {
 		return this.credentials;
 	}
 	
+	public NonceManager getNonceManager() {
+		return nonces;
+	}
+	
+	// count consecutive nonces for a bundle, the first one comes back
+	public BigInteger reserveNonces(int count) throws IOException {
+		return nonces.reserve(count);
+	}
+	
 	// functions wallet must perform? no credentials given.
 	
 	public BigInteger getNonce() throws Exception {
@@ -73,15 +92,16 @@ public class Account extends OnChainObject {
 			
 			BigInteger value = Convert.toWei(amount, Convert.Unit.ETHER).toBigInteger();
 
-			BigInteger nonce = this.getNonce();
-			RawTransaction rawTransaction = RawTransaction.createEtherTransaction(nonce, chainRPcConnection.getGasPriceWei(), GAS_LIMIT_TRANSFER_SEPOLIA, toAddress.getAddress(), value);
-			
+			// from the fee oracle of the node, no eth_gasPrice on the way
+			BigInteger gasPrice = ((Web3jConnect) chainRPcConnection).getFeeOracle().getGasPriceWei();
 			
-			byte[] signedMessage = TransactionEncoder.signMessage(rawTransaction, this.credentials);
-	        String hexValue = Numeric.toHexString(signedMessage);
-
-	        EthSendTransaction ethSendTransaction =
-	        		((( Web3jConnect) chainRPcConnection).getWeb3j()).ethSendRawTransaction(hexValue).sendAsync().get();
+	        EthSendTransaction ethSendTransaction = send(nonce -> 
+	        		RawTransaction.createEtherTransaction(nonce, gasPrice, GAS_LIMIT_TRANSFER_SEPOLIA, toAddress.getAddress(), value));
+	        
+	        if (ethSendTransaction.hasError()) {
+	        	throw new IOException("Transfer failed: " + ethSendTransaction.getError().getMessage());
+	        }
+	        
 	        String transactionHash = ethSendTransaction.getTransactionHash();
 	        
 	       return (( Web3jConnect) chainRPcConnection).waitForTransactionReceipt(transactionHash);
@@ -98,37 +118,99 @@ public class Account extends OnChainObject {
 	
 	// todo, make trasnafer with bignumber and wei...
 	
+	// the gas limit from eth_estimateGas, a fixed high limit would lock maxFeePerGas * limit of the balance
 	public EthSendTransaction call(String data, BigInteger amountWei, SmartContract toAddress) throws Exception {
-        
-               // info about fees
 		
-		BigInteger gasLimit = null;
-		BigInteger maxPriorityFeePerGas = null;
-        BigInteger maxFeePerGas = null;
+		BigInteger estimate = ((Web3jConnect) chainRPcConnection).estimateGas(this.getAddress(), toAddress.getAddress(), amountWei, data);
+		
+		BigInteger gasLimit = estimate.multiply(BigInteger.valueOf(100 + GAS_ESTIMATE_MARGIN)).divide(BigInteger.valueOf(100));
+		
+		return call(data, amountWei, toAddress, gasLimit);
+	}
+	
+	public EthSendTransaction call(String data, BigInteger amountWei, SmartContract toAddress, BigInteger gasLimit) throws Exception {
         
-        // chainRPcConnection
+        // info about fees, the median tip of the last blocks over the next base fee
+		FeeOracle.Fees fees = ((Web3jConnect) chainRPcConnection).getFeeOracle().getFees();
+		
+		BigInteger maxPriorityFeePerGas = fees.getPriorityFee(FeeOracle.P50);
+        BigInteger maxFeePerGas = fees.getMaxFeePerGas(maxPriorityFeePerGas);
 
-        RawTransaction rawTransaction = RawTransaction.createTransaction(
-                Long.getLong(this.getChain().ID),
-                this.getNonce(),
+        long chainId = Long.parseLong(this.getChain().ID);
+        
+        return send(nonce -> RawTransaction.createTransaction(
+                chainId,
+                nonce,
                 gasLimit,
                 toAddress.getAddress(),
                 amountWei,
                 data,
                 maxPriorityFeePerGas,
-                maxFeePerGas);
-        
-        byte[] signedMessage =
-                TransactionEncoder.signMessage(rawTransaction, credentials);
-        String signedHexMessage = Numeric.toHexString(signedMessage);
-         
-        return chainRPcConnection.ethSendRawTransaction(signedHexMessage);
+                maxFeePerGas));
         
         //System.out.println("Transaction hash: " + ethSendTransaction.getTransactionHash());
         //System.out.println("Tx Receipt = " + web3j.ethGetTransactionReceipt(ethSendTransaction.getTransactionHash()).send().getTransactionReceipt());
 
     }
 	
+	// signs and sends the transaction with the next local nonce. the nonce is only given back
+	// when the node refused the transaction for good (NonceManager.isRejected): a timeout or an
+	// unknown error may still have reached the pool, and reusing the nonce then would replace
+	// or duplicate it. "already known" is this very transaction in the pool, a success.
+	// on "nonce too low" the hash is looked up first, the transaction may have landed already,
+	// only if it did not are the nonces read from the chain again and it goes once more
+	private EthSendTransaction send(Function<BigInteger, RawTransaction> transaction) throws Exception {
+		
+		for (int attempt = 0; ; attempt++) {
+			
+			BigInteger nonce = nonces.next();
+			
+			String signedMessage = Numeric.toHexString(TransactionEncoder.signMessage(transaction.apply(nonce), credentials));
+			
+			String transactionHash = Hash.sha3(signedMessage);
+			
+			// an IOException keeps the nonce taken, the node may have the transaction
+			EthSendTransaction sent = chainRPcConnection.ethSendRawTransaction(signedMessage);
+			
+			if (!sent.hasError()) return sent;
+			
+			String message = sent.getError().getMessage();
+			
+			if (NonceManager.isAlreadyKnown(message)) return sentAs(sent, transactionHash);
+			
+			if (attempt == 0 && NonceManager.isNonceTooLow(message)) {
+				
+				if (isKnownTransaction(transactionHash)) return sentAs(sent, transactionHash);
+				
+				nonces.resync();
+				continue;
+			}
+			
+			if (NonceManager.isRejected(message)) nonces.release(nonce);
+			
+			return sent;
+		}
+	}
+	
+	// pending or mined, the node has it
+	private boolean isKnownTransaction(String transactionHash) throws IOException {
+		
+		return ((Web3jConnect) chainRPcConnection).getWeb3j().ethGetTransactionByHash(transactionHash).send()
+				.getTransaction().isPresent();
+	}
+	
+	// the answer of a send that went through, for a transaction the node already had
+	private static EthSendTransaction sentAs(EthSendTransaction answer, String transactionHash) {
+		
+		EthSendTransaction sent = new EthSendTransaction();
+		
+		sent.setId(answer.getId());
+		sent.setJsonrpc(answer.getJsonrpc());
+		sent.setResult(transactionHash);
+		
+		return sent;
+	}
+	
 	// just give tx without signing
     
     /*
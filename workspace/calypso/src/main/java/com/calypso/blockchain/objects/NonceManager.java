@@ -0,0 +1,146 @@
+package com.calypso.blockchain.objects;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.response.EthGetTransactionCount;
+
+import com.calypso.blockchain.api.web3j.Web3jConnect;
+
+public class NonceManager {
+	
+	// the nonces of one account handed out locally, so a send needs no eth_getTransactionCount
+	// and two threads sending from the account never get the same one.
+	//
+	// the counter is seeded once from the pending count of the chain. a nonce given out but
+	// refused by the node for good (isRejected: insufficient funds, intrinsic gas...) is a gap:
+	// the chain waits on it, so it is handed out again first. a nonce whose send timed out or
+	// failed in any other way is not released, the transaction may be pending.
+	// "nonce too low" means someone else sent from the account, the counter jumps to the
+	// count of the chain and the gaps below it are dropped.
+	// reserve(n) gives n consecutive nonces for a bundle, never from the gaps
+	
+	private Web3jConnect connection;
+	private String address;
+	
+	// next nonce never given out, -1 until seeded
+	private AtomicLong next = new AtomicLong(-1);
+	
+	private ConcurrentSkipListSet<Long> gaps = new ConcurrentSkipListSet<Long>();
+	
+	public NonceManager(Web3jConnect connection, String address) {
+		this.connection = connection;
+		this.address = address;
+	}
+	
+	public BigInteger next() throws IOException {
+		
+		Long gap = gaps.pollFirst();
+		
+		if (gap != null) return BigInteger.valueOf(gap);
+		
+		return BigInteger.valueOf(seeded().getAndIncrement());
+	}
+	
+	// the first of count consecutive nonces
+	public BigInteger reserve(int count) throws IOException {
+		return BigInteger.valueOf(seeded().getAndAdd(count));
+	}
+	
+	// the send with this nonce was refused for good, see isRejected. it goes out again
+	public void release(BigInteger nonce) {
+		
+		long value = nonce.longValue();
+		
+		// the last one handed out just steps the counter back
+		if (!next.compareAndSet(value + 1, value)) gaps.add(value);
+	}
+	
+	public void release(BigInteger first, int count) {
+		for (int contNonce = count - 1; contNonce >= 0; contNonce--) {
+			release(first.add(BigInteger.valueOf(contNonce)));
+		}
+	}
+	
+	// the count of the chain again, after a "nonce too low" or a restart of the node
+	public synchronized void resync() throws IOException {
+		
+		long chain = chainCount();
+		
+		gaps.headSet(chain).clear();
+		
+		// a local counter ahead of the chain keeps its nonces in flight
+		next.accumulateAndGet(chain, Math::max);
+	}
+	
+	public long peek() {
+		return next.get();
+	}
+	
+	public int getGapCount() {
+		return gaps.size();
+	}
+	
+	private AtomicLong seeded() throws IOException {
+		
+		if (next.get() < 0) {
+			synchronized (this) {
+				if (next.get() < 0) next.set(chainCount());
+			}
+		}
+		
+		return next;
+	}
+	
+	// pending, the transactions in the mempool count too
+	private long chainCount() throws IOException {
+		
+		EthGetTransactionCount count = connection.getWeb3j()
+				.ethGetTransactionCount(address, DefaultBlockParameterName.PENDING).send();
+		
+		if (count.hasError()) {
+			throw new IOException("eth_getTransactionCount failed: " + count.getError().getMessage());
+		}
+		
+		return count.getTransactionCount().longValue();
+	}
+	
+	// geth and hardhat "nonce too low", others "nonce has already been used"
+	public static boolean isNonceTooLow(String message) {
+		
+		if (message == null) return false;
+		
+		String lower = message.toLowerCase(Locale.ROOT);
+		
+		return lower.contains("nonce too low") || lower.contains("nonce has already been used");
+	}
+	
+	// the same signed transaction is in the pool already, geth "already known",
+	// older geth "known transaction", nethermind "AlreadyKnown"
+	public static boolean isAlreadyKnown(String message) {
+		
+		if (message == null) return false;
+		
+		String lower = message.toLowerCase(Locale.ROOT);
+		
+		return lower.contains("already known") || lower.contains("known transaction") || lower.contains("alreadyknown");
+	}
+	
+	// refusals checked before the pool takes the transaction, nothing with this nonce is pending.
+	// "replacement transaction underpriced" is not one: another transaction holds the nonce
+	public static boolean isRejected(String message) {
+		
+		if (message == null) return false;
+		
+		String lower = message.toLowerCase(Locale.ROOT);
+		
+		return lower.contains("insufficient funds") || lower.contains("intrinsic gas too low")
+				|| lower.contains("exceeds block gas limit") || lower.contains("less than block base fee")
+				|| lower.contains("invalid sender");
+	}
+	
+}
@@ -0,0 +1,187 @@
+package com.calypso.bots;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.calypso.general.HelloWorld;
+import com.calypso.general.JsonText;
+import com.calypso.uniswap.StringPoolSource;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public class CalypsoServer {
+
+	// the CalypsoProxy methods behind a localhost HTTP endpoint, so the JS side
+	// talks to one warm JVM instead of starting java -jar for every request.
+	//
+	// POST /<method>[?tokens=0x..,0x..]   body: the argument, for Yus the pools JSON array
+	//
+	//   Yus         pools (whole list or the ones that moved), one SearchSession per token set,
+	//               so the pools and the G of the last request are the warm start of the next
+	//   HelloWorld  the argument echoed
+	//   status      pools and blocks of every session
+	//
+	// every answer is one JSON object. bound to the loopback only, requests run on virtual threads
+
+	public static final int DEFAULT_PORT = 8547;
+
+	// WETH, what CalypsoProxy searched from
+	public static final String DEFAULT_TOKEN = "0xC02aaA39b223FE8D0A0e5C4F27eAD9083C756Cc2";
+
+	private HttpServer server;
+
+	// token set -> warm pools and searcher
+	private ConcurrentHashMap<String, SearchSession> sessions = new ConcurrentHashMap<String, SearchSession>();
+
+	private AtomicLong requests = new AtomicLong();
+
+	public CalypsoServer(int port) throws IOException {
+
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+
+		server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+	}
+
+	public void start() {
+
+		server.createContext("/", this::handle);
+
+		server.start();
+	}
+
+	public void stop() {
+		server.stop(0);
+	}
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+
+		long request = requests.incrementAndGet();
+
+		int status = 200;
+		String response;
+
+		try {
+
+			String method = exchange.getRequestURI().getPath().substring(1);
+
+			String argument;
+
+			try (InputStream body = exchange.getRequestBody()) {
+				argument = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+			}
+
+			response = call(request, method, argument, query(exchange, "tokens"));
+
+			if (response == null) {
+				status = 404;
+				response = "{\"error\":" + JsonText.quote("Unknown Function " + method) + "}";
+			}
+
+		} catch (Exception e) {
+			status = 400;
+			response = SearchSession.error(request, e);
+		}
+
+		byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	// null for an unknown method
+	public String call(long request, String method, String argument, String tokens) throws Exception {
+
+		switch (method) {
+
+		case "Yus": {
+
+			String key = (tokens == null || tokens.isBlank()) ? DEFAULT_TOKEN : tokens;
+
+			SearchSession session = sessions.computeIfAbsent(key, k -> new SearchSession(baseTokens(k)));
+
+			return session.apply(request, new StringPoolSource(argument).load());
+		}
+
+		case "HelloWorld":
+			return "{\"hello\":" + JsonText.quote(new HelloWorld(HelloWorld.CARLOS).sayHello())
+					+ ",\"argument\":" + JsonText.quote(argument) + "}";
+
+		case "status": {
+
+			StringBuilder json = new StringBuilder("{\"requests\":").append(requests.get()).append(",\"sessions\":[");
+
+			boolean first = true;
+
+			for (String key : sessions.keySet()) {
+
+				SearchSession session = sessions.get(key);
+
+				if (!first) json.append(',');
+				first = false;
+
+				json.append("{\"tokens\":");
+				JsonText.appendString(json, key);
+				json.append(",\"pools\":").append(session.poolCount());
+				json.append(",\"blocks\":").append(session.getBlocks()).append('}');
+			}
+
+			return json.append("]}").toString();
+		}
+
+		default:
+			return null;
+		}
+	}
+
+	private static List<String> baseTokens(String tokens) {
+		return Arrays.asList(tokens.split(","));
+	}
+
+	private static String query(HttpExchange exchange, String name) {
+
+		String query = exchange.getRequestURI().getRawQuery();
+
+		if (query == null) return null;
+
+		for (String pair : query.split("&")) {
+
+			int equals = pair.indexOf('=');
+
+			if (equals > 0 && pair.substring(0, equals).equals(name)) {
+				return URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+			}
+		}
+
+		return null;
+	}
+
+	// CalypsoServer [port]
+	public static void main(String[] args) throws Exception {
+
+		CalypsoServer server = new CalypsoServer((args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_PORT);
+
+		server.start();
+
+		// the JS side waits for this line before the first request
+		System.out.println("Listening on 127.0.0.1:" + server.getPort());
+	}
+
+}
@@ -1,11 +1,25 @@
 package com.calypso.bots;
 
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalTime;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.List;
 
-import com.calypso.algorithms.yuzhang.YuZhangMethod;
-import com.calypso.uniswap.UniswapMarketsDeparser;
+import com.calypso.algorithms.yuzhang.ArbitrageCycle;
+import com.calypso.algorithms.yuzhang.YuZhangMethodOptmized;
+import com.calypso.blockchain.api.OnChainNodeList;
+import com.calypso.blockchain.api.web3j.FeeOracle;
+import com.calypso.blockchain.api.web3j.Web3jConnect;
+import com.calypso.uniswap.PoolSource;
+import com.calypso.uniswap.StringPoolSource;
+import com.calypso.uniswap.SyncLogSubscriber;
 import com.calypso.uniswap.UniswapPool;
+import com.calypso.uniswap.UniswapPoolList;
 
 public class Calypso_test {
 
@@ -33,7 +47,18 @@ public class Calypso_test {
 	 */
 	
 	
-	private static YuZhangMethod searcherYuzHan = new YuZhangMethod();
+	// USDC, WETH, USDT, DAI
+	private static List<String> BASE_TOKENS = Arrays.asList(
+			"0xA0b86991c6218b36c1d19D4a2e9Eb0cE3606eB48",
+			"0xC02aaA39b223FE8D0A0e5C4F27eAD9083C756Cc2",
+			"0xdAC17F958D2ee523a2206206994597C13D831ec7",
+			"0x6B175474E89094C44Da98b954EedeAC495271d0F");
+	
+	private static YuZhangMethodOptmized searcherYuzHan = new YuZhangMethodOptmized();
+	
+	// WETH, the cycles through it must pay their gas on this trade in --sync
+	private static final String GAS_TOKEN = "0xC02aaA39b223FE8D0A0e5C4F27eAD9083C756Cc2";
+	private static final double TRADE_SIZE_WEI = 1e18;
 	
 	public Calypso_test() {
 		;
@@ -41,6 +66,16 @@ public class Calypso_test {
 	
 	public static void main(String[] args) throws Exception {
 		
+		if (args.length > 0 && args[0].equals("--daemon")) {
+			daemon();
+			return;
+		}
+		
+		if (args.length > 0 && args[0].equals("--sync")) {
+			sync(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		
 		// must check liquitdity, so we dont pick zero stuff...
 		
 		
@@ -63,11 +98,13 @@ public class Calypso_test {
 		String POOLS_LIST_FILE = ROOT + FILE + BLOCK + EXTENSION;
 		
 		
-		HashMap<String, UniswapPool> poolList = UniswapMarketsDeparser.initFromBuffer();
-		
-		UniswapPool[] pools = poolList.values().toArray(new UniswapPool[0]);
+		// Calypso_test parsedMarkets21078701.snap, Calypso_test parsedMarkets21078701.mkts, a directory of .mkts, or the pools on stdin
+		UniswapPool[] pools = PoolSource.fromArgs(args).load().toArray();
 
-		searcherYuzHan.findOpportunities(pools, "0xA0b86991c6218b36c1d19D4a2e9Eb0cE3606eB48", "0x3Aa370AacF4CB08C7E1E7AA8E8FF9418D73C7e0F"); 
+		// every base token searched in parallel on the same G
+		List<ArbitrageCycle> cycles = searcherYuzHan.findOpportunities(pools, BASE_TOKENS); 
+		
+		System.out.println("Number of Cycles: " + cycles.size());
 		
 		//UniswapMarketsDeparser.printPoolList(poolList);
 		
@@ -75,11 +112,86 @@ public class Calypso_test {
 		
 		// put gas into account
 
-		System.out.println("Number of Pools: " + poolList.size());
+		System.out.println("Number of Pools: " + pools.length);
 
 		currentTime = LocalTime.now();
         System.out.println("Finishing Analysis at: " + currentTime); 
 
 	}
 	
+	// Calypso_test --daemon
+	// one JVM for the whole run. every line of stdin is a JSON array of markets, the
+	// whole pool list or only the pools that moved, and gets one JSON line back on stdout.
+	// G stays in memory, so after the first block the latency is the search only
+	public static void daemon() throws Exception {
+		
+		SearchSession session = new SearchSession(BASE_TOKENS);
+		
+		BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16);
+		PrintStream out = new PrintStream(new FileOutputStream(FileDescriptor.out), false, StandardCharsets.UTF_8);
+		
+		long block = 0;
+		
+		for (String line = in.readLine(); line != null; line = in.readLine()) {
+			
+			if (line.isBlank()) continue;
+			
+			block++;
+			
+			String result;
+			
+			try {
+				result = session.apply(block, new StringPoolSource(line).load());
+			} catch (Exception e) {
+				// a bad line is reported, the pools of the good ones stay
+				result = SearchSession.error(block, e);
+			}
+			
+			out.println(result);
+			out.flush();
+		}
+	}
+	
+	// Calypso_test --sync [pools file]
+	// the pools of the file, or stdin, searched once, then every block with Sync logs
+	// is applied as a diff batch and searched again, one JSON line per block on stdout.
+	// the WETH cycles that do not pay the gas price of the FeeOracle are left out.
+	// against the hardhat node, or a fork of mainnet
+	public static void sync(String[] args) throws Exception {
+		
+		UniswapPoolList pools = PoolSource.fromArgs(args).load();
+		
+		Web3jConnect connection = new Web3jConnect(OnChainNodeList.LOCAL_RPC);
+		
+		long start = connection.getBlockNumber().longValue();
+		
+		SearchSession session = new SearchSession(BASE_TOKENS);
+		
+		PrintStream out = new PrintStream(new FileOutputStream(FileDescriptor.out), false, StandardCharsets.UTF_8);
+		
+		FeeOracle fees = connection.getFeeOracle();
+		
+		session.getSearcher().setGasFilter(GAS_TOKEN, TRADE_SIZE_WEI, fees.getGasPriceWei().doubleValue());
+		
+		out.println(session.apply(start, pools));
+		out.flush();
+		
+		SyncLogSubscriber subscriber = new SyncLogSubscriber(connection, pools, start);
+		
+		// on the thread of the subscriber, the only one that touches the session.
+		// a batch that fails is not committed, the subscriber stops and reports it
+		try {
+			subscriber.run((block, changed) -> {
+				// from memory, the oracle follows the blocks on its own thread
+				session.getSearcher().setGasFilter(GAS_TOKEN, TRADE_SIZE_WEI, fees.getGasPriceWei().doubleValue());
+				out.println(session.apply(block, changed));
+				out.flush();
+			});
+		} catch (Exception e) {
+			out.println(SearchSession.error(subscriber.getPendingBlock(), e));
+			out.flush();
+			throw e;
+		}
+	}
+	
 }
@@ -0,0 +1,149 @@
+package com.calypso.bots;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import com.calypso.algorithms.yuzhang.ArbitrageCycle;
+import com.calypso.algorithms.yuzhang.YuZhangMethodOptmized;
+import com.calypso.general.JsonText;
+import com.calypso.uniswap.UniswapPool;
+import com.calypso.uniswap.UniswapPoolList;
+
+public class SearchSession {
+
+	// the pools and the G of a long running bot, kept warm between blocks.
+	//
+	// every block hands a batch of markets. a market already known is a reserve
+	// update: only its two edges of G change and the base token searches restart
+	// from their last distances. a new market rebuilds G once, the known markets
+	// of that batch still only take their new reserves.
+	//
+	// so a batch can be the whole pool list again or just the pools that moved,
+	// the diff entries need no token0 / token1. a market not known yet must
+	// bring both, and every market two balances that read as whole numbers,
+	// otherwise the batch is refused before anything changes
+
+	private UniswapPoolList pools = new UniswapPoolList();
+
+	private YuZhangMethodOptmized searcher = new YuZhangMethodOptmized();
+
+	private List<String> baseTokens;
+
+	private boolean built = false;
+
+	private long blocks = 0;
+
+	public SearchSession(List<String> baseTokens) {
+		this.baseTokens = baseTokens;
+	}
+
+	public YuZhangMethodOptmized getSearcher() {
+		return searcher;
+	}
+
+	public synchronized int poolCount() {
+		return pools.size();
+	}
+
+	public synchronized long getBlocks() {
+		return blocks;
+	}
+
+	// the result of the block as one line of JSON
+	public synchronized String apply(long block, UniswapPoolList batch) {
+
+		long start = System.nanoTime();
+
+		boolean rebuild = !built;
+
+		for (UniswapPool market : batch) {
+
+			if (!isBalance(market.getBalance0()) || !isBalance(market.getBalance1())) {
+				throw new IllegalArgumentException("Market with a missing or bad balance: " + market.getMarketAddress());
+			}
+
+			if (pools.contains(market.getMarketAddress())) {
+				continue;
+			}
+
+			if (market.getToken0() == null || market.getToken1() == null) {
+				throw new IllegalArgumentException("Unknown market without token0 / token1: " + market.getMarketAddress());
+			}
+
+			rebuild = true;
+		}
+
+		List<ArbitrageCycle> cycles;
+
+		if (rebuild) {
+
+			for (UniswapPool market : batch) {
+
+				UniswapPool known = pools.get(market.getMarketAddress());
+
+				if (known == null) {
+					pools.add(market);
+				} else {
+					known.setReserves(market.getBalance0(), market.getBalance1());
+				}
+			}
+
+			cycles = searcher.findOpportunities(pools.toArray(), baseTokens);
+
+			built = true;
+
+		} else {
+
+			for (UniswapPool market : batch) {
+				searcher.updatePool(market.getMarketAddress(), market.getBalance0(), market.getBalance1());
+			}
+
+			cycles = searcher.findOpportunities(baseTokens);
+		}
+
+		blocks++;
+
+		double searchMs = (System.nanoTime() - start) / 1e6;
+
+		StringBuilder json = new StringBuilder(256 + 256 * cycles.size());
+
+		json.append("{\"block\":").append(block);
+		json.append(",\"pools\":").append(pools.size());
+		json.append(",\"batch\":").append(batch.size());
+		json.append(",\"rebuilt\":").append(rebuild);
+		json.append(",\"searchMs\":");
+		JsonText.appendNumber(json, searchMs);
+		json.append(",\"cycles\":[");
+
+		for (int contCycle = 0; contCycle < cycles.size(); contCycle++) {
+			if (contCycle > 0) json.append(',');
+			json.append(cycles.get(contCycle).toJson());
+		}
+
+		return json.append("]}").toString();
+	}
+
+	private static boolean isBalance(String balance) {
+
+		if (balance == null) {
+			return false;
+		}
+
+		try {
+			return new BigInteger(balance).signum() >= 0;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+	public static String error(long block, Exception e) {
+
+		StringBuilder json = new StringBuilder(128);
+
+		json.append("{\"block\":").append(block).append(",\"error\":");
+		JsonText.appendString(json, e.getClass().getSimpleName() + ": " + e.getMessage());
+
+		return json.append('}').toString();
+	}
+
+}
@@ -0,0 +1,49 @@
+package com.calypso.general;
+
+public class JsonText {
+
+	// the few pieces of JSON the bots write out by hand, one result per line,
+	// without building a JSONObject for every cycle
+
+	private JsonText() {
+
+	}
+
+	public static void appendString(StringBuilder json, String value) {
+
+		if (value == null) {
+			json.append("null");
+			return;
+		}
+
+		json.append('"');
+
+		for (int i = 0; i < value.length(); i++) {
+
+			char c = value.charAt(i);
+
+			if (c == '"' || c == '\\') json.append('\\').append(c);
+			else if (c < 0x20) json.append(String.format("\\u%04x", (int) c));
+			else json.append(c);
+		}
+
+		json.append('"');
+	}
+
+	// JSON has no infinity or NaN
+	public static void appendNumber(StringBuilder json, Double value) {
+
+		if (value == null || value.isNaN() || value.isInfinite()) json.append("null");
+		else json.append(value.doubleValue());
+	}
+
+	public static String quote(String value) {
+
+		StringBuilder json = new StringBuilder(value == null ? 4 : value.length() + 2);
+
+		appendString(json, value);
+
+		return json.toString();
+	}
+
+}
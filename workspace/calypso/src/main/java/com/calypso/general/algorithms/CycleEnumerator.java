@@ -0,0 +1,229 @@
+package com.calypso.general.algorithms;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import com.calypso.general.datastructures.TokenGraph;
+
+/*
+ * Every simple cycle of at most maxDepth edges through a start token of a
+ * TokenGraph, by an iterative depth first search on fixed size arrays.
+ *
+ * A cycle goes through each token once, and never takes the same pool back
+ * (edge e followed by e ^ 1). Two pools of the same pair still make a cycle
+ * of 2 edges.
+ *
+ * With maxWeight set, a path is dropped as soon as its weight, plus the
+ * cheapest edge of G for every hop left, cannot end below maxWeight. With 0,
+ * only cycles that pay are reached.
+ *
+ * Cycles are handed to a CycleListener as they are found, in a buffer the
+ * search reuses, so nothing is allocated per cycle. Searches split on the
+ * first edge can run in parallel, then the listener must be thread safe.
+ */
+
+public class CycleEnumerator {
+
+	public interface CycleListener {
+		// edges[0 .. length) is only valid during the call, copy it to keep it
+		void onCycle(int[] edges, int length, double weight);
+	}
+
+	private TokenGraph G;
+	private int maxDepth;
+	private double maxWeight = Double.POSITIVE_INFINITY;
+
+	public CycleEnumerator(TokenGraph G, int maxDepth) {
+
+		if (maxDepth < 2) {
+			throw new IllegalArgumentException("maxDepth must be at least 2, got " + maxDepth);
+		}
+
+		this.G = G;
+		this.maxDepth = maxDepth;
+	}
+
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	public double getMaxWeight() {
+		return maxWeight;
+	}
+
+	public void setMaxWeight(double maxWeight) {
+		this.maxWeight = maxWeight;
+	}
+
+	// returns how many cycles the listener got
+	public long enumerate(int startToken, CycleListener listener) {
+
+		G.compress();
+
+		Search search = new Search(startToken, listener, minWeight());
+
+		long cycles = 0;
+
+		for (int k = G.outStart(startToken); k < G.outEnd(startToken); k++) {
+			cycles += search.from(G.outEdge(k));
+		}
+
+		return cycles;
+	}
+
+	// one task per first edge on pool, one search per thread that runs them
+	public long enumerate(int startToken, CycleListener listener, ForkJoinPool pool) {
+
+		G.compress();
+
+		double minWeight = minWeight();
+
+		ThreadLocal<Search> stacks = ThreadLocal.withInitial(() -> new Search(startToken, listener, minWeight));
+
+		List<ForkJoinTask<Long>> searches = new ArrayList<ForkJoinTask<Long>>();
+
+		for (int k = G.outStart(startToken); k < G.outEnd(startToken); k++) {
+
+			int firstEdge = G.outEdge(k);
+
+			searches.add(pool.submit(() -> stacks.get().from(firstEdge)));
+		}
+
+		long cycles = 0;
+
+		for (ForkJoinTask<Long> search : searches) {
+			cycles += search.join();
+		}
+
+		return cycles;
+	}
+
+	// what one hop can still take off a path at most, the cheapest edge of G or 0
+	private double minWeight() {
+
+		double minWeight = 0.0;
+
+		for (int e = 0; e < G.edgeCount(); e++) {
+			minWeight = Math.min(minWeight, G.weight(e));
+		}
+
+		return minWeight;
+	}
+
+	// the stack of one search, reused across its first edges
+	private class Search {
+
+		private int startToken;
+		private CycleListener listener;
+
+		private int[] path = new int[maxDepth];
+		private int[] cursor = new int[maxDepth + 1];
+		private double[] weight = new double[maxDepth + 1];
+		private boolean[] onPath = new boolean[G.nodeCount()];
+
+		private double minWeight;
+
+		Search(int startToken, CycleListener listener, double minWeight) {
+
+			this.startToken = startToken;
+			this.listener = listener;
+			this.minWeight = minWeight;
+		}
+
+		long from(int firstEdge) {
+
+			long cycles = 0;
+
+			int first = G.target(firstEdge);
+
+			double firstWeight = G.weight(firstEdge);
+
+			if (first == startToken || firstWeight + (maxDepth - 1) * minWeight >= maxWeight) {
+				return 0;
+			}
+
+			path[0] = firstEdge;
+			weight[1] = firstWeight;
+			onPath[first] = true;
+			cursor[1] = G.outStart(first);
+
+			int depth = 1;
+
+			while (depth > 0) {
+
+				int u = G.target(path[depth - 1]);
+
+				if (cursor[depth] == G.outEnd(u)) {
+					onPath[u] = false;
+					depth--;
+					continue;
+				}
+
+				int e = G.outEdge(cursor[depth]++);
+
+				// the same pool straight back
+				if (e == (path[depth - 1] ^ 1)) continue;
+
+				int v = G.target(e);
+				double w = weight[depth] + G.weight(e);
+
+				if (v == startToken) {
+					if (w < maxWeight) {
+						path[depth] = e;
+						listener.onCycle(path, depth + 1, w);
+						cycles++;
+					}
+					continue;
+				}
+
+				// room for this edge and one more back to the start
+				if (onPath[v] || depth + 2 > maxDepth) continue;
+
+				if (w + (maxDepth - depth - 1) * minWeight >= maxWeight) continue;
+
+				path[depth] = e;
+				weight[depth + 1] = w;
+				onPath[v] = true;
+				depth++;
+				cursor[depth] = G.outStart(v);
+			}
+
+			return cycles;
+		}
+	}
+
+	public static void main(String[] args) {
+
+		TokenGraph G = new TokenGraph();
+
+		// pool p -> edges 2p, 2p + 1
+		G.addEdge(0, 1, -0.1); G.addEdge(1, 0, 0.2);
+		G.addEdge(1, 2, -0.1); G.addEdge(2, 1, 0.2);
+		G.addEdge(2, 0, -0.1); G.addEdge(0, 2, 0.2);
+		G.addEdge(2, 3, 0.05); G.addEdge(3, 2, 0.05);
+		G.addEdge(3, 0, 0.05); G.addEdge(0, 3, 0.05);
+		G.addEdge(0, 1, 0.01); G.addEdge(1, 0, 0.01);
+
+		CycleEnumerator enumerator = new CycleEnumerator(G, 4);
+
+		long cycles = enumerator.enumerate(0, (edges, length, weight) -> {
+
+			StringBuilder cycle = new StringBuilder();
+
+			for (int i = 0; i < length; i++) {
+				cycle.append(G.source(edges[i])).append(" -> ");
+			}
+
+			System.out.println(cycle.append(G.target(edges[length - 1])) + " : " + weight);
+		});
+
+		System.out.println("Cycles: " + cycles);
+
+		enumerator.setMaxWeight(0.0);
+
+		System.out.println("Paying cycles: " + enumerator.enumerate(0, (edges, length, weight) -> { }, ForkJoinPool.commonPool()));
+	}
+
+}
@@ -0,0 +1,159 @@
+package com.calypso.general.datastructures;
+
+/*
+ * Line graph L of a TokenGraph G, as used by the YuZhang method.
+ *
+ * Every edge e of G (Vi -> Vj) is a node of L. L has an edge e -> f when
+ * f leaves the token e arrives at (Vj -> Vl) and does not go straight back
+ * to Vi. Its weight is the weight of f in G.
+ *
+ * Nothing is stored per L edge: the successors of e are read from the CSR
+ * of G, so L costs no memory of its own and follows every weight change in G.
+ *
+ * Node G.edgeCount() is the virtual zero pool (Zero_TOKEN -> start token)
+ * the searches start from.
+ */
+
+public class LineGraph {
+
+	public static final int NO_TOKEN = -1;
+
+	private TokenGraph G;
+	private int startToken = NO_TOKEN;
+
+	public LineGraph(TokenGraph G) {
+		this.G = G;
+	}
+
+	public LineGraph(TokenGraph G, int startToken) {
+		this.G = G;
+		this.startToken = startToken;
+	}
+
+	public TokenGraph getTokenGraph() {
+		return G;
+	}
+
+	public int getStartToken() {
+		return startToken;
+	}
+
+	public void setStartToken(int startToken) {
+		this.startToken = startToken;
+	}
+
+	public int nodeCount() {
+		return G.edgeCount() + 1;
+	}
+
+	public int startNode() {
+		return G.edgeCount();
+	}
+
+	// Vi of node Vi -> Vj, NO_TOKEN for the zero pool
+	public int tailToken(int node) {
+		return (node == G.edgeCount()) ? NO_TOKEN : G.source(node);
+	}
+
+	// Vj of node Vi -> Vj
+	public int headToken(int node) {
+		return (node == G.edgeCount()) ? startToken : G.target(node);
+	}
+
+	// weight of every L edge arriving at node
+	public double weight(int node) {
+		return (node == G.edgeCount()) ? 0.0 : G.weight(node);
+	}
+
+	// successor iteration: for k in [successorStart(u), successorEnd(u)),
+	// v = successorAt(k), skipping isBacktrack(u, v)
+
+	public int successorStart(int node) {
+
+		int head = headToken(node);
+
+		return (head < 0 || head >= G.nodeCount()) ? 0 : G.outStart(head);
+	}
+
+	public int successorEnd(int node) {
+
+		int head = headToken(node);
+
+		return (head < 0 || head >= G.nodeCount()) ? 0 : G.outEnd(head);
+	}
+
+	public int successorAt(int k) {
+		return G.outEdge(k);
+	}
+
+	public boolean isBacktrack(int node, int successor) {
+		return G.target(successor) == tailToken(node);
+	}
+
+	// predecessor iteration: for k in [predecessorStart(v), predecessorEnd(v)),
+	// u = predecessorAt(k), skipping isBacktrack(u, v). The zero pool is not
+	// listed, it precedes v when startPrecedes(v)
+
+	public int predecessorStart(int node) {
+
+		int tail = tailToken(node);
+
+		return (tail < 0) ? 0 : G.inStart(tail);
+	}
+
+	public int predecessorEnd(int node) {
+
+		int tail = tailToken(node);
+
+		return (tail < 0) ? 0 : G.inEnd(tail);
+	}
+
+	public int predecessorAt(int k) {
+		return G.inEdge(k);
+	}
+
+	public boolean startPrecedes(int node) {
+		return startToken != NO_TOKEN && tailToken(node) == startToken;
+	}
+
+	public long edgeCount() {
+
+		long edges = 0;
+
+		for (int u = 0; u < nodeCount(); u++) {
+			for (int k = successorStart(u); k < successorEnd(u); k++) {
+				if (!isBacktrack(u, successorAt(k))) edges++;
+			}
+		}
+
+		return edges;
+	}
+
+	// writes the L edges into parallel arrays, for solvers that want them explicit
+	public int toEdgeList(int[] from, int[] to, double[] weights) {
+
+		int m = 0;
+
+		for (int u = 0; u < nodeCount(); u++) {
+			for (int k = successorStart(u); k < successorEnd(u); k++) {
+
+				int v = successorAt(k);
+
+				if (isBacktrack(u, v)) continue;
+
+				from[m] = u;
+				to[m] = v;
+				weights[m] = G.weight(v);
+				m++;
+			}
+		}
+
+		return m;
+	}
+
+	@Override
+	public String toString() {
+		return "LineGraph( nodes: " + nodeCount() + " edges: " + edgeCount() + " start token: " + startToken + " )";
+	}
+
+}
@@ -0,0 +1,84 @@
+package com.calypso.general.datastructures;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/*
+ * Gives every node a dense int id, 0, 1, 2... in insertion order, so graphs
+ * can be laid out in arrays. The reverse array turns ids back into nodes
+ * when reconstructing paths.
+ */
+
+public class NodeInterner<N> {
+
+	public static final int ABSENT = -1;
+
+	private HashMap<N, Integer> ids;
+	private Object[] nodes;
+	private int size = 0;
+
+	public NodeInterner() {
+		this(16);
+	}
+
+	public NodeInterner(int expectedSize) {
+		ids = new HashMap<N, Integer>(Math.max(16, (int) (expectedSize / 0.75f) + 1));
+		nodes = new Object[Math.max(16, expectedSize)];
+	}
+
+	// id of node, creating one if it is new
+	public int intern(N node) {
+
+		Integer id = ids.get(node);
+
+		if (id != null) {
+			return id.intValue();
+		}
+
+		if (size == nodes.length) {
+			nodes = Arrays.copyOf(nodes, size << 1);
+		}
+
+		nodes[size] = node;
+		ids.put(node, Integer.valueOf(size));
+
+		return size++;
+	}
+
+	public int indexOf(N node) {
+
+		Integer id = ids.get(node);
+
+		return (id == null) ? ABSENT : id.intValue();
+	}
+
+	public boolean contains(N node) {
+		return ids.containsKey(node);
+	}
+
+	@SuppressWarnings("unchecked")
+	public N get(int id) {
+
+		if (id < 0 || id >= size) {
+			throw new IndexOutOfBoundsException("Node id " + id + " out of " + size);
+		}
+
+		return (N) nodes[id];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		ids.clear();
+		Arrays.fill(nodes, 0, size, null);
+		size = 0;
+	}
+
+	@Override
+	public String toString() {
+		return "NodeInterner[" + size + "]";
+	}
+
+}
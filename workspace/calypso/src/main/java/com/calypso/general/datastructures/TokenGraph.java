@@ -0,0 +1,185 @@
+package com.calypso.general.datastructures;
+
+import java.util.Arrays;
+
+/*
+ * Directed multigraph over int node ids kept in parallel primitive arrays.
+ *
+ * Edges keep the id they were added with (0, 1, 2...), so a caller can map
+ * them back to whatever produced them (pool p -> edges 2p and 2p + 1).
+ * compress() sorts the edge ids by source into a CSR layout:
+ * the edges leaving node u are outEdge(k) for k in [outStart(u), outEnd(u)),
+ * and the edges arriving at v are inEdge(k) for k in [inStart(v), inEnd(v)).
+ *
+ * clear() keeps the arrays, so rebuilding the graph every block does not
+ * allocate once it reached its size.
+ */
+
+public class TokenGraph {
+
+	private int nodeCount = 0;
+	private int edgeCount = 0;
+
+	private int[] source;
+	private int[] target;
+	private double[] weight;
+
+	// CSR, built by compress()
+	private int[] outOffsets;
+	private int[] outEdges;
+	private int[] inOffsets;
+	private int[] inEdges;
+	private boolean compressed = false;
+
+	public TokenGraph() {
+		this(16, 32);
+	}
+
+	public TokenGraph(int expectedNodes, int expectedEdges) {
+
+		int edges = Math.max(16, expectedEdges);
+
+		source = new int[edges];
+		target = new int[edges];
+		weight = new double[edges];
+
+		outOffsets = new int[Math.max(16, expectedNodes) + 1];
+		outEdges = new int[edges];
+
+		inOffsets = new int[outOffsets.length];
+		inEdges = new int[edges];
+	}
+
+	// returns the edge id
+	public int addEdge(int u, int v, double w) {
+
+		if (edgeCount == source.length) {
+			int capacity = source.length << 1;
+			source = Arrays.copyOf(source, capacity);
+			target = Arrays.copyOf(target, capacity);
+			weight = Arrays.copyOf(weight, capacity);
+		}
+
+		source[edgeCount] = u;
+		target[edgeCount] = v;
+		weight[edgeCount] = w;
+
+		nodeCount = Math.max(nodeCount, Math.max(u, v) + 1);
+		compressed = false;
+
+		return edgeCount++;
+	}
+
+	// weights can change without touching the layout
+	public void setWeight(int edge, double w) {
+		weight[edge] = w;
+	}
+
+	public void compress() {
+
+		if (compressed) return;
+
+		if (outOffsets.length < nodeCount + 1) {
+			outOffsets = new int[Math.max(nodeCount + 1, outOffsets.length << 1)];
+			inOffsets = new int[outOffsets.length];
+		}
+
+		if (outEdges.length < edgeCount) {
+			outEdges = new int[source.length];
+			inEdges = new int[source.length];
+		}
+
+		sortBy(source, outOffsets, outEdges);
+		sortBy(target, inOffsets, inEdges);
+
+		compressed = true;
+	}
+
+	// counting sort of the edge ids by endpoint
+	private void sortBy(int[] endpoint, int[] offsets, int[] edges) {
+
+		Arrays.fill(offsets, 0, nodeCount + 1, 0);
+
+		for (int e = 0; e < edgeCount; e++) offsets[endpoint[e] + 1]++;
+		for (int u = 0; u < nodeCount; u++) offsets[u + 1] += offsets[u];
+
+		for (int e = 0; e < edgeCount; e++) {
+			int u = endpoint[e];
+			edges[offsets[u]++] = e;
+		}
+
+		// the fill moved every offset one slot ahead, shift them back
+		for (int u = nodeCount; u > 0; u--) offsets[u] = offsets[u - 1];
+		offsets[0] = 0;
+	}
+
+	public boolean isCompressed() {
+		return compressed;
+	}
+
+	public void clear() {
+		nodeCount = 0;
+		edgeCount = 0;
+		compressed = false;
+	}
+
+	public int nodeCount() {
+		return nodeCount;
+	}
+
+	public int edgeCount() {
+		return edgeCount;
+	}
+
+	public int source(int edge) {
+		return source[edge];
+	}
+
+	public int target(int edge) {
+		return target[edge];
+	}
+
+	public double weight(int edge) {
+		return weight[edge];
+	}
+
+	// successor iteration, needs compress()
+
+	public int outStart(int u) {
+		return outOffsets[u];
+	}
+
+	public int outEnd(int u) {
+		return outOffsets[u + 1];
+	}
+
+	public int outEdge(int k) {
+		return outEdges[k];
+	}
+
+	public int outDegree(int u) {
+		return outOffsets[u + 1] - outOffsets[u];
+	}
+
+	public int inStart(int v) {
+		return inOffsets[v];
+	}
+
+	public int inEnd(int v) {
+		return inOffsets[v + 1];
+	}
+
+	public int inEdge(int k) {
+		return inEdges[k];
+	}
+
+	public int inDegree(int v) {
+		return inOffsets[v + 1] - inOffsets[v];
+	}
+
+	@Override
+	public String toString() {
+		return "TokenGraph( nodes: " + nodeCount + " edges: " + edgeCount + " )";
+	}
+
+}
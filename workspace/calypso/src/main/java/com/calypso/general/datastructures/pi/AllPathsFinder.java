@@ -3,28 +3,72 @@ package com.calypso.general.datastructures.pi;
 import com.google.common.graph.Graph;
 import com.google.common.graph.MutableGraph;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 public class AllPathsFinder {
-	
+
 	// check if we may optmize
 
+	// simple paths only, each node once, and at most maxDepth nodes after startNode.
+	// iterative, so deep graphs do not overflow the stack.
+	// for token graphs use CycleEnumerator, it works on int ids and allocates nothing per path
+
     public static <N> List<List<N>> findAllPaths(MutableGraph<N> graph, N startNode, N endNode) {
-        List<List<N>> allPaths = new ArrayList<>();
-        findAllPathsRecursive(graph, startNode, endNode, new ArrayList<>(), allPaths);
-        return allPaths;
+        return findAllPaths(graph, startNode, endNode, graph.nodes().size());
     }
 
-    private static <N> void findAllPathsRecursive(MutableGraph<N> graph, N currentNode, N endNode, List<N> currentPath, List<List<N>> allPaths) {
-        if (currentNode.equals(endNode)) {
-            allPaths.add(new ArrayList<>(currentPath));
-        } else {
-            for (N neighbor : graph.successors(currentNode)) {
-                currentPath.add(neighbor);
-                findAllPathsRecursive(graph, neighbor, endNode, currentPath, allPaths);
-                currentPath.remove(currentPath.size() - 1);
+    public static <N> List<List<N>> findAllPaths(Graph<N> graph, N startNode, N endNode, int maxDepth) {
+        List<List<N>> allPaths = new ArrayList<>();
+
+        if (startNode.equals(endNode)) {
+            allPaths.add(new ArrayList<>());
+            return allPaths;
+        }
+
+        List<N> currentPath = new ArrayList<>();
+        Set<N> onPath = new HashSet<>();
+        Deque<Iterator<N>> successors = new ArrayDeque<>();
+
+        onPath.add(startNode);
+        successors.push(graph.successors(startNode).iterator());
+
+        while (!successors.isEmpty()) {
+            Iterator<N> next = successors.peek();
+
+            if (!next.hasNext()) {
+                successors.pop();
+                if (!currentPath.isEmpty()) {
+                    onPath.remove(currentPath.remove(currentPath.size() - 1));
+                }
+                continue;
+            }
+
+            N neighbor = next.next();
+
+            if (onPath.contains(neighbor)) continue;
+
+            if (neighbor.equals(endNode)) {
+                List<N> path = new ArrayList<>(currentPath.size() + 1);
+                path.addAll(currentPath);
+                path.add(neighbor);
+                allPaths.add(path);
+                continue;
             }
+
+            // room for neighbor and one more node to reach endNode
+            if (currentPath.size() + 2 > maxDepth) continue;
+
+            currentPath.add(neighbor);
+            onPath.add(neighbor);
+            successors.push(graph.successors(neighbor).iterator());
         }
+
+        return allPaths;
     }
 }
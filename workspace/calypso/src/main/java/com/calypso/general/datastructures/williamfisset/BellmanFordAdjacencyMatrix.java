@@ -10,7 +10,7 @@ package com.calypso.general.datastructures.williamfisset;
 import java.util.*;
 import java.util.stream.Collectors;
 
-public class BellmanFordAdjacencyMatrix {
+public class BellmanFordAdjacencyMatrix implements BellmanFordSolver {
 
   private int n, start;
   private boolean solved;
@@ -18,6 +18,11 @@ public class BellmanFordAdjacencyMatrix {
   private Integer[] prev;
   private double[][] matrix;
 
+  // predecessors after one more relaxation pass, see BellmanFordLineGraph
+  private int[] cyclePrev;
+  private int[] cycleSeeds;
+  private int cycleSeedCount;
+
   /**
    * An implementation of the Bellman-Ford algorithm. The algorithm finds the shortest path between
    * a starting node and all other nodes in the graph. The algorithm also detects negative cycles.
@@ -76,6 +81,26 @@ public class BellmanFordAdjacencyMatrix {
             prev[j] = i;
           }
 
+    // One more pass on a copy keeps the predecessors of the nodes still relaxing,
+    // following them backwards leads into the negative cycles.
+    double[] nextDist = dist.clone();
+    cyclePrev = new int[n];
+    cycleSeeds = new int[n];
+    cycleSeedCount = 0;
+    java.util.Arrays.fill(cyclePrev, -1);
+    boolean[] seed = new boolean[n];
+    for (int i = 0; i < n; i++)
+      for (int j = 0; j < n; j++)
+        if (nextDist[i] + matrix[i][j] < nextDist[j]) {
+          nextDist[j] = nextDist[i] + matrix[i][j];
+          cyclePrev[j] = i;
+          if (!seed[j]) {
+            seed[j] = true;
+            cycleSeeds[cycleSeedCount++] = j;
+          }
+        }
+    for (int j = 0; j < n; j++) if (cyclePrev[j] == -1 && prev[j] != null) cyclePrev[j] = prev[j];
+
     // Run algorithm a second time to detect which nodes are part
     // of a negative cycle. A negative cycle has occurred if we
     // can find a better path beyond the optimal solution.
@@ -90,6 +115,38 @@ public class BellmanFordAdjacencyMatrix {
     solved = true;
   }
 
+  /**
+   * @return the negative cycles reachable from the start, each once, as nodes in path order. Empty
+   *     when there is none.
+   */
+  @Override
+  public List<List<Integer>> getNegativeCycles() {
+    if (!solved) solve();
+    List<List<Integer>> cycles = new ArrayList<>();
+
+    // walk back from every node relaxed in the extra pass, a walk that meets its own
+    // stamp closed a new cycle, one that meets an older stamp joined a known one
+    int[] seen = new int[n];
+    for (int i = 0; i < cycleSeedCount; i++) {
+      int stamp = i + 1;
+      int at = cycleSeeds[i];
+      while (at >= 0 && seen[at] == 0) {
+        seen[at] = stamp;
+        at = cyclePrev[at];
+      }
+      if (at < 0 || seen[at] != stamp) continue;
+
+      LinkedList<Integer> cycle = new LinkedList<>();
+      int node = at;
+      do {
+        cycle.addFirst(node);
+        node = cyclePrev[node];
+      } while (node != at);
+      cycles.add(cycle);
+    }
+    return cycles;
+  }
+
   public static void main(String[] args) {
 
     int n = 7;
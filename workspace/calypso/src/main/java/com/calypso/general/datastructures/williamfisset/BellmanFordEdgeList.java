@@ -0,0 +1,225 @@
+package com.calypso.general.datastructures.williamfisset;
+
+/**
+ * Edge list variant of the Bellman-Ford algorithm. Edges are kept in a compressed sparse row (CSR)
+ * layout, so memory is O(V + E) instead of the O(V^2) of the adjacency matrix and a full run is
+ * O(V * E). Relaxation stops as soon as a pass relaxes nothing, which on the line graphs built by
+ * the YuZhang searchers happens long before the V - 1 passes.
+ */
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class BellmanFordEdgeList implements BellmanFordSolver {
+
+  // Markers stored in prev[] next to real predecessor ids.
+  public static final int NO_PREDECESSOR = -1;
+  public static final int NEGATIVE_CYCLE = -2;
+
+  private int n, m, start;
+  private boolean solved;
+  private boolean negativeCycle;
+  private int passes;
+  private double[] dist;
+  private int[] prev;
+
+  // Edges in insertion order.
+  private int[] from, to;
+  private double[] weight;
+
+  // CSR layout built on solve: edges of node i are [offsets[i], offsets[i + 1]).
+  private int[] offsets, targets;
+  private double[] weights;
+
+  /**
+   * @param start - The id of the starting node
+   * @param n - The number of nodes, ids go from 0 to n - 1
+   */
+  public BellmanFordEdgeList(int start, int n) {
+    this(start, n, 16);
+  }
+
+  public BellmanFordEdgeList(int start, int n, int expectedEdges) {
+    this.n = n;
+    this.start = start;
+    int capacity = Math.max(expectedEdges, 1);
+    this.from = new int[capacity];
+    this.to = new int[capacity];
+    this.weight = new double[capacity];
+  }
+
+  /**
+   * Builds the solver straight from parallel edge arrays, edge e going from[e] -> to[e] with cost
+   * weight[e]. Only the first m entries are read.
+   */
+  public BellmanFordEdgeList(int start, int n, int[] from, int[] to, double[] weight, int m) {
+    this.n = n;
+    this.start = start;
+    this.m = m;
+    this.from = Arrays.copyOf(from, Math.max(m, 1));
+    this.to = Arrays.copyOf(to, Math.max(m, 1));
+    this.weight = Arrays.copyOf(weight, Math.max(m, 1));
+  }
+
+  public void addEdge(int u, int v, double w) {
+    if (m == from.length) {
+      int capacity = from.length << 1;
+      from = Arrays.copyOf(from, capacity);
+      to = Arrays.copyOf(to, capacity);
+      weight = Arrays.copyOf(weight, capacity);
+    }
+    from[m] = u;
+    to[m] = v;
+    weight[m] = w;
+    m++;
+    solved = false;
+  }
+
+  public int getNumberOfNodes() {
+    return n;
+  }
+
+  public int getNumberOfEdges() {
+    return m;
+  }
+
+  /** @return how many relaxation passes the last solve needed before it settled. */
+  public int getPasses() {
+    if (!solved) solve();
+    return passes;
+  }
+
+  public boolean hasNegativeCycle() {
+    if (!solved) solve();
+    return negativeCycle;
+  }
+
+  public double[] getShortestPaths() {
+    if (!solved) solve();
+    return dist;
+  }
+
+  public List<Integer> reconstructShortestPath(int end) {
+    if (!solved) solve();
+    LinkedList<Integer> path = new LinkedList<>();
+    if (dist[end] == Double.POSITIVE_INFINITY) return path;
+    for (int at = end; prev[at] != NO_PREDECESSOR; at = prev[at]) {
+      // Return null since there are an infinite number of shortest paths.
+      if (prev[at] == NEGATIVE_CYCLE) return null;
+      path.addFirst(at);
+    }
+    path.addFirst(start);
+    return path;
+  }
+
+  // Counting sort of the edges by source node.
+  private void compress() {
+    offsets = new int[n + 1];
+    for (int e = 0; e < m; e++) offsets[from[e] + 1]++;
+    for (int i = 0; i < n; i++) offsets[i + 1] += offsets[i];
+
+    targets = new int[m];
+    weights = new double[m];
+    int[] cursor = Arrays.copyOf(offsets, n);
+    for (int e = 0; e < m; e++) {
+      int slot = cursor[from[e]]++;
+      targets[slot] = to[e];
+      weights[slot] = weight[e];
+    }
+  }
+
+  public void solve() {
+    if (solved) return;
+
+    compress();
+
+    // Initialize the distance to all nodes to be infinity
+    // except for the start node which is zero.
+    dist = new double[n];
+    java.util.Arrays.fill(dist, Double.POSITIVE_INFINITY);
+    dist[start] = 0;
+
+    prev = new int[n];
+    java.util.Arrays.fill(prev, NO_PREDECESSOR);
+
+    // Relax every edge until a pass changes nothing, at most n - 1 times.
+    boolean relaxed = true;
+    for (passes = 0; passes < n - 1 && relaxed; passes++) {
+      relaxed = false;
+      for (int i = 0; i < n; i++) {
+        double di = dist[i];
+        if (di == Double.POSITIVE_INFINITY) continue;
+        for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+          int j = targets[e];
+          if (di + weights[e] < dist[j]) {
+            dist[j] = di + weights[e];
+            prev[j] = i;
+            relaxed = true;
+          }
+        }
+      }
+    }
+
+    // A negative cycle can only exist if the last allowed pass still relaxed something.
+    // Then spread NEGATIVE_INFINITY to every node reachable from it.
+    negativeCycle = false;
+    boolean changed = relaxed;
+    for (int k = 0; k < n - 1 && changed; k++) {
+      changed = false;
+      for (int i = 0; i < n; i++) {
+        double di = dist[i];
+        if (di == Double.POSITIVE_INFINITY) continue;
+        for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+          int j = targets[e];
+          if (di + weights[e] < dist[j]) {
+            dist[j] = Double.NEGATIVE_INFINITY;
+            prev[j] = NEGATIVE_CYCLE;
+            negativeCycle = true;
+            changed = true;
+          }
+        }
+      }
+    }
+
+    solved = true;
+  }
+
+  public static void main(String[] args) {
+
+    int n = 7;
+
+    // Same case 2 graph as BellmanFordAdjacencyMatrix, without the n x n matrix.
+    BellmanFordEdgeList solver = new BellmanFordEdgeList(0, n);
+    solver.addEdge(0, 1, 0.7236);
+    solver.addEdge(0, 4, -0.6627);
+    solver.addEdge(1, 2, -0.2572);
+    solver.addEdge(2, 3, 0.7236);
+    solver.addEdge(3, 1, 0.7236);
+    solver.addEdge(4, 5, 0.3181);
+    solver.addEdge(5, 6, -0.6627);
+    solver.addEdge(6, 4, -0.6627);
+
+    int start = 0;
+    double[] d = solver.getShortestPaths();
+
+    for (int i = 0; i < n; i++)
+      System.out.printf("The cost to get from node %d to %d is %.2f\n", start, i, d[i]);
+
+    System.out.println();
+
+    for (int i = 0; i < n; i++) {
+      String strPath;
+      List<Integer> path = solver.reconstructShortestPath(i);
+      if (path == null) {
+        strPath = "Infinite number of shortest paths.";
+      } else {
+        List<String> nodes = path.stream().map(Object::toString).collect(Collectors.toList());
+        strPath = String.join(" -> ", nodes);
+      }
+      System.out.printf("The shortest path from %d to %d is: [%s]\n", start, i, strPath);
+    }
+
+    System.out.println();
+    System.out.println("Passes: " + solver.getPasses() + " Negative cycle: " + solver.hasNegativeCycle());
+  }
+}
@@ -0,0 +1,199 @@
+package com.calypso.general.datastructures.williamfisset;
+
+/**
+ * Hop-bounded shortest paths over the line graph of a TokenGraph, as a layered dynamic program.
+ * Layer k holds, for every node, the cheapest walk of exactly k nodes after the zero pool, so the
+ * best cycle of k pools through the start token is read from layer k. Each layer only expands the
+ * nodes the layer before reached, the work is at most maxHops passes over the edges instead of the
+ * n - 1 passes of Bellman-Ford.
+ *
+ * <p>With pruning on, a node is not expanded when even the cheapest edges of the graph for the hops
+ * left cannot bring its walk below zero, so only cycles that pay are completed.
+ *
+ * <p>A walk never takes the same pool twice (pool p -> edges 2p and 2p + 1 of the token graph), so
+ * the walk read from layer k is a cycle of k different pools. It may still go through a token more
+ * than once.
+ *
+ * <p>This is a heuristic, not an exact simple-cycle search. Each layer keeps only the cheapest walk
+ * to a node, and a relaxation that would take a pool already on that walk is dropped. When the
+ * cheapest prefix repeats a pool and a dearer prefix to the same node does not, the cycle through
+ * the dearer prefix is lost. Keeping every pool set per layer would be exact but exponential; use
+ * CycleEnumerator when every cycle is needed. The pool check walks the predecessors back, O(k) for
+ * each relaxation that lowers a distance, so O(maxHops^2 * E) in the worst case.
+ */
+
+import com.calypso.general.datastructures.LineGraph;
+import com.calypso.general.datastructures.TokenGraph;
+
+import java.util.*;
+
+public class BellmanFordHopBounded {
+
+  private LineGraph L;
+  private int n, start, maxHops;
+  private boolean pruning;
+  private boolean solved;
+  private long relaxations;
+
+  // dist[k][v], prev[k][v] is the node before v in layer k - 1
+  private double[][] dist;
+  private int[][] prev;
+
+  public BellmanFordHopBounded(LineGraph L, int maxHops) {
+    this(L, maxHops, false);
+  }
+
+  public BellmanFordHopBounded(LineGraph L, int maxHops, boolean pruning) {
+    if (maxHops < 1) throw new IllegalArgumentException("maxHops must be at least 1, got " + maxHops);
+    this.L = L;
+    this.n = L.nodeCount();
+    this.start = L.startNode();
+    this.maxHops = maxHops;
+    this.pruning = pruning;
+  }
+
+  public int getMaxHops() {
+    return maxHops;
+  }
+
+  public int getStart() {
+    return start;
+  }
+
+  /** @return how many edges were relaxed, a measure of the work done. */
+  public long getRelaxations() {
+    if (!solved) solve();
+    return relaxations;
+  }
+
+  /** @return the cheapest walk of exactly hops nodes from the start to node. */
+  public double getDistance(int hops, int node) {
+    if (!solved) solve();
+    return dist[hops][node];
+  }
+
+  /** @return the distances of layer hops, do not modify. */
+  public double[] getLayer(int hops) {
+    if (!solved) solve();
+    return dist[hops];
+  }
+
+  /**
+   * @return the nodes from the start node to end in exactly hops steps, or an empty list if no such
+   *     walk exists.
+   */
+  public List<Integer> reconstructShortestPath(int hops, int end) {
+    if (!solved) solve();
+    LinkedList<Integer> path = new LinkedList<>();
+    if (dist[hops][end] == Double.POSITIVE_INFINITY) return path;
+    int at = end;
+    for (int k = hops; k > 0; k--) {
+      path.addFirst(at);
+      at = prev[k][at];
+    }
+    path.addFirst(start);
+    return path;
+  }
+
+  public void solve() {
+    if (solved) return;
+
+    dist = new double[maxHops + 1][n];
+    prev = new int[maxHops + 1][n];
+    for (int k = 0; k <= maxHops; k++) {
+      Arrays.fill(dist[k], Double.POSITIVE_INFINITY);
+      Arrays.fill(prev[k], BellmanFordEdgeList.NO_PREDECESSOR);
+    }
+    dist[0][start] = 0;
+
+    // the cheapest edge bounds what the hops left can still take off a walk
+    double minWeight = 0;
+    for (int v = 0; v < start; v++) minWeight = Math.min(minWeight, L.weight(v));
+
+    // nodes reached by the last layer, each once
+    int[] frontier = new int[n];
+    int[] next = new int[n];
+    boolean[] inNext = new boolean[n];
+    int frontierSize = 0;
+    frontier[frontierSize++] = start;
+
+    relaxations = 0;
+    for (int k = 1; k <= maxHops && frontierSize > 0; k++) {
+      double[] from = dist[k - 1];
+      double[] to = dist[k];
+      int[] before = prev[k];
+      int nextSize = 0;
+
+      for (int i = 0; i < frontierSize; i++) {
+        int u = frontier[i];
+        double du = from[u];
+        int end = L.successorEnd(u);
+        for (int j = L.successorStart(u); j < end; j++) {
+          int v = L.successorAt(j);
+          if (L.isBacktrack(u, v)) continue;
+          relaxations++;
+          double dv = du + L.weight(v);
+          if (dv < to[v] && !onWalk(k - 1, u, v >> 1)) {
+            to[v] = dv;
+            before[v] = u;
+            if (!inNext[v]) {
+              inNext[v] = true;
+              next[nextSize++] = v;
+            }
+          }
+        }
+      }
+
+      // swap, dropping the nodes that cannot close a paying cycle any more
+      frontierSize = 0;
+      double bound = (maxHops - k) * minWeight;
+      for (int i = 0; i < nextSize; i++) {
+        int v = next[i];
+        inNext[v] = false;
+        if (pruning && to[v] + bound >= 0) continue;
+        frontier[frontierSize++] = v;
+      }
+    }
+
+    solved = true;
+  }
+
+  // true if pool is taken by the walk of layer hops ending at node, O(hops)
+  private boolean onWalk(int hops, int node, int pool) {
+    int at = node;
+    for (int k = hops; k > 0; k--) {
+      if (at >> 1 == pool) return true;
+      at = prev[k][at];
+    }
+    return false;
+  }
+
+  public static void main(String[] args) {
+    TokenGraph G = new TokenGraph();
+    // tokens 0, 1, 2, 3 and two ways back to 0
+    G.addEdge(0, 1, -0.1);
+    G.addEdge(1, 0, 0.2);
+    G.addEdge(1, 2, -0.1);
+    G.addEdge(2, 1, 0.2);
+    G.addEdge(2, 0, -0.1);
+    G.addEdge(0, 2, 0.2);
+    G.addEdge(2, 3, 0.05);
+    G.addEdge(3, 2, 0.05);
+    G.addEdge(3, 0, 0.05);
+    G.addEdge(0, 3, 0.05);
+    G.compress();
+
+    LineGraph L = new LineGraph(G, 0);
+    BellmanFordHopBounded solver = new BellmanFordHopBounded(L, 4);
+
+    for (int k = 1; k <= solver.getMaxHops(); k++) {
+      for (int v = 0; v < L.startNode(); v++) {
+        if (L.headToken(v) != 0 || solver.getDistance(k, v) == Double.POSITIVE_INFINITY) continue;
+        System.out.printf(
+            "%d hops to node %d: %.2f %s\n",
+            k, v, solver.getDistance(k, v), solver.reconstructShortestPath(k, v));
+      }
+    }
+    System.out.println("Relaxations: " + solver.getRelaxations());
+  }
+}
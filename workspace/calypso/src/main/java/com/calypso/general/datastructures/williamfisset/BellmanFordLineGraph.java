@@ -0,0 +1,323 @@
+package com.calypso.general.datastructures.williamfisset;
+
+/**
+ * Bellman-Ford over the implicit line graph of a TokenGraph. Same algorithm as BellmanFordEdgeList,
+ * but the successors of each node are read from the CSR of the token graph, so no edge list of L is
+ * ever built. Starts from the zero pool of the line graph.
+ *
+ * <p>When only weights change between two solves, update() reuses the previous distances: nodes
+ * whose weight went up lose their shortest path subtree, the rest stays as a warm start and is
+ * relaxed from the predecessors of the changed nodes, so the work follows the number of changes.
+ */
+
+import com.calypso.general.datastructures.LineGraph;
+
+import java.util.*;
+
+public class BellmanFordLineGraph implements BellmanFordSolver {
+
+  private LineGraph L;
+  private int n, start;
+  private boolean solved;
+  private boolean negativeCycle;
+  private int passes;
+  private double[] dist;
+  private int[] prev;
+
+  // predecessors after one more relaxation pass, only when that pass still relaxed something
+  private int[] cyclePrev;
+  private int[] cycleSeeds;
+  private int cycleSeedCount;
+
+  // weight of every node at the last solve, tells increases from decreases
+  private double[] solvedWeight;
+
+  private int updates;
+
+  public BellmanFordLineGraph(LineGraph L) {
+    this.L = L;
+    this.n = L.nodeCount();
+    this.start = L.startNode();
+  }
+
+  public int getStart() {
+    return start;
+  }
+
+  public int getPasses() {
+    if (!solved) solve();
+    return passes;
+  }
+
+  public boolean hasNegativeCycle() {
+    if (!solved) solve();
+    return negativeCycle;
+  }
+
+  public double[] getShortestPaths() {
+    if (!solved) solve();
+    return dist;
+  }
+
+  /** @return how many solves were warm started from the previous distances. */
+  public int getUpdates() {
+    return updates;
+  }
+
+  /** @return the predecessor of each node, see BellmanFordEdgeList for the marker values. */
+  public int[] getPredecessors() {
+    if (!solved) solve();
+    return prev;
+  }
+
+  public List<Integer> reconstructShortestPath(int end) {
+    if (!solved) solve();
+    LinkedList<Integer> path = new LinkedList<>();
+    if (dist[end] == Double.POSITIVE_INFINITY) return path;
+    for (int at = end; prev[at] != BellmanFordEdgeList.NO_PREDECESSOR; at = prev[at]) {
+      // Return null since there are an infinite number of shortest paths.
+      if (prev[at] == BellmanFordEdgeList.NEGATIVE_CYCLE) return null;
+      path.addFirst(at);
+    }
+    path.addFirst(start);
+    return path;
+  }
+
+  public void solve() {
+    if (solved) return;
+
+    dist = new double[n];
+    Arrays.fill(dist, Double.POSITIVE_INFINITY);
+    dist[start] = 0;
+
+    prev = new int[n];
+    Arrays.fill(prev, BellmanFordEdgeList.NO_PREDECESSOR);
+
+    // Relax until a pass changes nothing, at most n - 1 times.
+    boolean relaxed = true;
+    for (passes = 0; passes < n - 1 && relaxed; passes++) {
+      relaxed = false;
+      for (int u = 0; u < n; u++) {
+        double du = dist[u];
+        if (du == Double.POSITIVE_INFINITY) continue;
+        int end = L.successorEnd(u);
+        for (int k = L.successorStart(u); k < end; k++) {
+          int v = L.successorAt(k);
+          if (L.isBacktrack(u, v)) continue;
+          double dv = du + L.weight(v);
+          if (dv < dist[v]) {
+            dist[v] = dv;
+            prev[v] = u;
+            relaxed = true;
+          }
+        }
+      }
+    }
+
+    // One more pass on a copy keeps the predecessors of the nodes still relaxing,
+    // following them backwards leads into the negative cycles.
+    cyclePrev = null;
+    cycleSeedCount = 0;
+    if (relaxed) {
+      double[] nextDist = dist.clone();
+      cyclePrev = prev.clone();
+      cycleSeeds = new int[n];
+      boolean[] seed = new boolean[n];
+      for (int u = 0; u < n; u++) {
+        double du = nextDist[u];
+        if (du == Double.POSITIVE_INFINITY) continue;
+        int end = L.successorEnd(u);
+        for (int k = L.successorStart(u); k < end; k++) {
+          int v = L.successorAt(k);
+          if (L.isBacktrack(u, v)) continue;
+          if (du + L.weight(v) < nextDist[v]) {
+            nextDist[v] = du + L.weight(v);
+            cyclePrev[v] = u;
+            if (!seed[v]) {
+              seed[v] = true;
+              cycleSeeds[cycleSeedCount++] = v;
+            }
+          }
+        }
+      }
+    }
+
+    // Spread NEGATIVE_INFINITY from the nodes still relaxing after n - 1 passes.
+    negativeCycle = false;
+    boolean changed = relaxed;
+    for (int i = 0; i < n - 1 && changed; i++) {
+      changed = false;
+      for (int u = 0; u < n; u++) {
+        double du = dist[u];
+        if (du == Double.POSITIVE_INFINITY) continue;
+        int end = L.successorEnd(u);
+        for (int k = L.successorStart(u); k < end; k++) {
+          int v = L.successorAt(k);
+          if (L.isBacktrack(u, v)) continue;
+          if (du + L.weight(v) < dist[v]) {
+            dist[v] = Double.NEGATIVE_INFINITY;
+            prev[v] = BellmanFordEdgeList.NEGATIVE_CYCLE;
+            negativeCycle = true;
+            changed = true;
+          }
+        }
+      }
+    }
+
+    solvedWeight = new double[n];
+    for (int v = 0; v < n; v++) solvedWeight[v] = L.weight(v);
+
+    solved = true;
+  }
+
+  /**
+   * @return the negative cycles reachable from the start, each once, as nodes of the line graph in
+   *     path order. Empty when there is none.
+   */
+  @Override
+  public List<List<Integer>> getNegativeCycles() {
+    if (!solved) solve();
+    List<List<Integer>> cycles = new ArrayList<>();
+    if (!negativeCycle || cyclePrev == null) return cycles;
+
+    // walk back from every node relaxed in the extra pass, a walk that meets its own
+    // stamp closed a new cycle, one that meets an older stamp joined a known one
+    int[] seen = new int[n];
+    for (int i = 0; i < cycleSeedCount; i++) {
+      int stamp = i + 1;
+      int at = cycleSeeds[i];
+      while (at >= 0 && seen[at] == 0) {
+        seen[at] = stamp;
+        at = cyclePrev[at];
+      }
+      if (at < 0 || seen[at] != stamp) continue;
+
+      LinkedList<Integer> cycle = new LinkedList<>();
+      int node = at;
+      do {
+        cycle.addFirst(node);
+        node = cyclePrev[node];
+      } while (node != at);
+      cycles.add(cycle);
+    }
+    return cycles;
+  }
+
+  /**
+   * Re-solves after the weights of the given nodes changed in the token graph. The layout of the
+   * graph and the start token must be the ones of the last solve, otherwise it solves from scratch.
+   *
+   * @return true if the previous distances were reused.
+   */
+  public boolean update(int[] changed, int count) {
+    if (!solved
+        || negativeCycle
+        || n != L.nodeCount()
+        || start != L.startNode()
+        || dist[start] != 0) {
+      return coldSolve();
+    }
+
+    // Nodes that got more expensive take their shortest path subtree with them.
+    int[] roots = new int[count];
+    int rootCount = 0;
+    for (int i = 0; i < count; i++) {
+      int v = changed[i];
+      if (L.weight(v) > solvedWeight[v] && dist[v] != Double.POSITIVE_INFINITY) roots[rootCount++] = v;
+    }
+
+    boolean[] invalid = new boolean[n];
+    int[] invalidated = new int[n];
+    int invalidCount = 0;
+
+    if (rootCount > 0) {
+      // children of every node in the shortest path tree, CSR by predecessor
+      int[] childOffsets = new int[n + 1];
+      for (int v = 0; v < n; v++) if (prev[v] >= 0) childOffsets[prev[v] + 1]++;
+      for (int u = 0; u < n; u++) childOffsets[u + 1] += childOffsets[u];
+      int[] children = new int[childOffsets[n]];
+      int[] fill = Arrays.copyOf(childOffsets, n);
+      for (int v = 0; v < n; v++) if (prev[v] >= 0) children[fill[prev[v]]++] = v;
+
+      for (int i = 0; i < rootCount; i++) {
+        if (invalid[roots[i]]) continue;
+        invalid[roots[i]] = true;
+        invalidated[invalidCount++] = roots[i];
+      }
+      for (int i = 0; i < invalidCount; i++) {
+        int u = invalidated[i];
+        for (int k = childOffsets[u]; k < childOffsets[u + 1]; k++) {
+          int v = children[k];
+          if (invalid[v]) continue;
+          invalid[v] = true;
+          invalidated[invalidCount++] = v;
+        }
+      }
+      for (int i = 0; i < invalidCount; i++) {
+        dist[invalidated[i]] = Double.POSITIVE_INFINITY;
+        prev[invalidated[i]] = BellmanFordEdgeList.NO_PREDECESSOR;
+      }
+    }
+
+    // Everything that can lower an invalidated or cheaper node is relaxed again.
+    int[] queue = new int[n];
+    boolean[] queued = new boolean[n];
+    int head = 0, size = 0;
+
+    for (int i = 0; i < invalidCount + count; i++) {
+      int v = (i < invalidCount) ? invalidated[i] : changed[i - invalidCount];
+      if (i >= invalidCount && L.weight(v) > solvedWeight[v]) continue;
+      if (L.startPrecedes(v) && !queued[start]) {
+        queued[start] = true;
+        queue[(head + size++) % n] = start;
+      }
+      int end = L.predecessorEnd(v);
+      for (int k = L.predecessorStart(v); k < end; k++) {
+        int u = L.predecessorAt(k);
+        if (queued[u] || dist[u] == Double.POSITIVE_INFINITY || L.isBacktrack(u, v)) continue;
+        queued[u] = true;
+        queue[(head + size++) % n] = u;
+      }
+    }
+
+    for (int i = 0; i < count; i++) solvedWeight[changed[i]] = L.weight(changed[i]);
+
+    // FIFO queue relaxation, each round is one Bellman-Ford pass over the touched nodes only.
+    int[] enqueued = new int[n];
+    while (size > 0) {
+      int u = queue[head];
+      head = (head + 1) % n;
+      size--;
+      queued[u] = false;
+
+      double du = dist[u];
+      int end = L.successorEnd(u);
+      for (int k = L.successorStart(u); k < end; k++) {
+        int v = L.successorAt(k);
+        if (L.isBacktrack(u, v)) continue;
+        double dv = du + L.weight(v);
+        if (dv < dist[v]) {
+          dist[v] = dv;
+          prev[v] = u;
+          if (!queued[v]) {
+            // a node queued n times sits on a negative cycle, let the full solve mark it
+            if (++enqueued[v] >= n) return coldSolve();
+            queued[v] = true;
+            queue[(head + size++) % n] = v;
+          }
+        }
+      }
+    }
+
+    updates++;
+    return true;
+  }
+
+  private boolean coldSolve() {
+    n = L.nodeCount();
+    start = L.startNode();
+    solved = false;
+    solve();
+    return false;
+  }
+}
@@ -0,0 +1,33 @@
+package com.calypso.general.datastructures.williamfisset;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Common contract of the Bellman-Ford implementations, so the YuZhang searchers can swap the dense
+ * matrix solver for the edge list one without touching their path reconstruction code.
+ */
+public interface BellmanFordSolver {
+
+  public void solve();
+
+  /**
+   * @return the distance from the start node to every node. Nodes reachable through a negative
+   *     cycle are set to Double.NEGATIVE_INFINITY, unreachable ones to Double.POSITIVE_INFINITY.
+   */
+  public double[] getShortestPaths();
+
+  /**
+   * @return the nodes from the start node to end, an empty list if end is unreachable or null if
+   *     there are an infinite number of shortest paths (end sits behind a negative cycle).
+   */
+  public List<Integer> reconstructShortestPath(int end);
+
+  /**
+   * @return the negative cycles reachable from the start node, as nodes in path order. Solvers that
+   *     cannot tell them apart return none.
+   */
+  public default List<List<Integer>> getNegativeCycles() {
+    return Collections.emptyList();
+  }
+}
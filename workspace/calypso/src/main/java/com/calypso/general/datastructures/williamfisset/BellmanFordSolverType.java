@@ -0,0 +1,58 @@
+package com.calypso.general.datastructures.williamfisset;
+
+import com.calypso.general.datastructures.LineGraph;
+
+/**
+ * Solver choice for the YuZhang searchers. Both build from the same edge arrays of the line graph,
+ * ADJACENCY_MATRIX only lays them out as an n x n matrix first, so keep it for small debugging
+ * graphs. Over a LineGraph, EDGE_LIST walks the token graph directly and builds no edge arrays.
+ */
+public enum BellmanFordSolverType {
+
+  ADJACENCY_MATRIX {
+    @Override
+    public BellmanFordSolver newSolver(
+        int start, int n, int[] from, int[] to, double[] weight, int m) {
+
+      double[][] graph = new double[n][n];
+
+      for (int i = 0; i < n; i++) {
+        java.util.Arrays.fill(graph[i], Double.POSITIVE_INFINITY);
+      }
+
+      for (int e = 0; e < m; e++) graph[from[e]][to[e]] = weight[e];
+
+      return new BellmanFordAdjacencyMatrix(start, graph);
+    }
+  },
+
+  EDGE_LIST {
+    @Override
+    public BellmanFordSolver newSolver(
+        int start, int n, int[] from, int[] to, double[] weight, int m) {
+      return new BellmanFordEdgeList(start, n, from, to, weight, m);
+    }
+
+    @Override
+    public BellmanFordSolver newSolver(LineGraph L) {
+      return new BellmanFordLineGraph(L);
+    }
+  };
+
+  public abstract BellmanFordSolver newSolver(
+      int start, int n, int[] from, int[] to, double[] weight, int m);
+
+  /** Starts from the zero pool of L. */
+  public BellmanFordSolver newSolver(LineGraph L) {
+
+    int m = (int) L.edgeCount();
+
+    int[] from = new int[m];
+    int[] to = new int[m];
+    double[] weight = new double[m];
+
+    L.toEdgeList(from, to, weight);
+
+    return newSolver(L.startNode(), L.nodeCount(), from, to, weight, m);
+  }
+}
@@ -5,7 +5,7 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 
 import org.web3j.utils.Convert;
-import com.calypso.blockchain.api.OnChainNodeList;
+import com.calypso.blockchain.api.web3j.FeeOracle;
 import com.calypso.blockchain.api.web3j.Web3jConnect;
 import com.calypso.blockchain.objects.Account;
 import com.calypso.blockchain.objects.ChainsList;
@@ -30,11 +30,12 @@ public class VerifyEVMTransferCost extends Strategy {
 	}
 	 
 	public void execute(BigInteger transferAmountWei) throws IOException {
-		 Web3jConnect connection = new Web3jConnect(OnChainNodeList.valueOfChain(wallet01.getChain()));
+		 // the fees of the wallet's node from memory, no new connection and no fee call
+		 FeeOracle.Fees fees = ((Web3jConnect) wallet01.chainRPcConnection).getFeeOracle().getFees();
 		 
-		 gasPrice = connection.getGasPriceWei();
+		 gasPrice = fees.getGasPriceWei();
 		 balance = wallet01.getBalanceWei();
-		 blockNumber = connection.getBlockNumber();
+		 blockNumber = BigInteger.valueOf(fees.block);
 		 
 		 // fees on sepolia, make it auto
 		 BigInteger chainTransferCost = Account.GAS_LIMIT_TRANSFER_SEPOLIA;
@@ -61,7 +62,7 @@ public class VerifyEVMTransferCost extends Strategy {
 		System.out.println(strategy.chain);
 		System.out.println(strategy.blockNumber);
 		System.out.println(strategy.gasPrice);
-		System.out.println(strategy.balance);;
+		System.out.println(strategy.balance);;
 		System.out.println(strategy.balanceDue);
 		System.out.println(strategy.haveFunds);
 	}
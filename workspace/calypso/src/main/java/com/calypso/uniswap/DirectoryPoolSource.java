@@ -0,0 +1,42 @@
+package com.calypso.uniswap;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+public class DirectoryPoolSource implements PoolSource {
+
+	// every .mkts file of a directory into one list, in name order.
+	// parsedMarkets<BLOCK> files of the same length sort by block, so a pool
+	// found in several files ends up with the reserves of the latest block
+
+	public static final String EXTENSION = ".mkts";
+
+	private String directory;
+
+	public DirectoryPoolSource(String directory) {
+		this.directory = directory;
+	}
+
+	@Override
+	public UniswapPoolList load() throws Exception {
+
+		File[] files = new File(directory).listFiles((dir, name) -> name.endsWith(EXTENSION));
+
+		if (files == null) {
+			throw new IOException("Not a directory: " + directory);
+		}
+
+		Arrays.sort(files);
+
+		UniswapPoolList pools = new UniswapPoolList();
+
+		// one file at a time, each mapped and decoded in chunks as FilePoolSource does
+		for (File file : files) {
+			FilePoolSource.load(file, pools);
+		}
+
+		return pools;
+	}
+
+}
@@ -0,0 +1,44 @@
+package com.calypso.uniswap;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+
+public class FilePoolSource implements PoolSource {
+
+	// a parsedMarkets<BLOCK>.mkts file, memory mapped and decoded in parallel chunks, so
+	// the heap only holds the pools. a file too large for one map is streamed instead
+
+	private String filename;
+
+	public FilePoolSource(String filename) {
+		this.filename = filename;
+	}
+
+	@Override
+	public UniswapPoolList load() throws Exception {
+
+		UniswapPoolList pools = new UniswapPoolList();
+
+		load(new File(filename), pools);
+
+		return pools;
+	}
+
+	// into pools, returns how many markets were read
+	static int load(File file, UniswapPoolList pools) throws IOException {
+
+		if (file.length() <= Integer.MAX_VALUE) {
+			return UniswapMarketsParallelParser.map(file).parse(ForkJoinPool.commonPool(), pools);
+		}
+
+		try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+			return new UniswapMarketsStreamParser(reader).parse(pools::add);
+		}
+	}
+
+}
@@ -0,0 +1,195 @@
+package com.calypso.uniswap;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.web3j.crypto.Keys;
+
+import com.calypso.blockchain.api.OnChainNodeList;
+import com.calypso.blockchain.api.web3j.Web3jConnect;
+
+public class PairListCache {
+
+	// the pairs of a factory on disk, one line per pair in factory index order:
+	//
+	//   index,pair,token0,token1
+	//
+	// the factory only appends to allPairs, so the file does too: sync asks for
+	// allPairsLength and fetches only the indexes past the last cached one.
+	// a cold start is then a file read, the pools come back with zero reserves
+	// for ReserveFetcher.refreshReserves, or for the YuZhang graph once they are filled.
+	// a line cut by a crash is dropped on load and fetched again: a line counts
+	// only with its '\n' and with three whole 0x addresses
+
+	private Path file;
+
+	private List<String> pairs = new ArrayList<String>();
+	private List<String> tokens0 = new ArrayList<String>();
+	private List<String> tokens1 = new ArrayList<String>();
+
+	public PairListCache(String filename) throws IOException {
+
+		this.file = Paths.get(filename);
+
+		load();
+	}
+
+	public int size() {
+		return pairs.size();
+	}
+
+	public String getPair(int index) {
+		return pairs.get(index);
+	}
+
+	public String getToken0(int index) {
+		return tokens0.get(index);
+	}
+
+	public String getToken1(int index) {
+		return tokens1.get(index);
+	}
+
+	private void load() throws IOException {
+
+		if (!Files.exists(file)) return;
+
+		long valid = 0; // bytes of the good lines, for the truncate
+		boolean broken = false;
+
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+
+			StringBuilder text = new StringBuilder(160);
+
+			for (int c = reader.read(); c != -1; c = reader.read()) {
+
+				if (c != '\n') {
+					text.append((char) c);
+					continue;
+				}
+
+				String line = text.toString();
+				text.setLength(0);
+
+				String[] fields = line.split(",");
+
+				if (fields.length != 4 || !fields[0].equals(Integer.toString(pairs.size()))
+						|| !isAddress(fields[1]) || !isAddress(fields[2]) || !isAddress(fields[3])) {
+					broken = true;
+					break;
+				}
+
+				pairs.add(checksum(fields[1]));
+				tokens0.add(checksum(fields[2]));
+				tokens1.add(checksum(fields[3]));
+
+				valid += line.length() + 1;
+			}
+		}
+
+		// drop the tail after the first bad line, the next sync writes it again
+		if (broken || valid != Files.size(file)) {
+
+			try (var channel = Files.newByteChannel(file, StandardOpenOption.WRITE)) {
+				channel.truncate(valid);
+			}
+		}
+	}
+
+	private static boolean isAddress(String address) {
+		return address.length() == 42 && address.startsWith("0x");
+	}
+
+	// lines of a file written with lowercase addresses, to the checksum form of the fetcher
+	private static String checksum(String address) {
+		return address.equals(address.toLowerCase()) ? Keys.toChecksumAddress(address) : address;
+	}
+
+	// fetches and appends the pairs the factory got since the last sync, returns how many
+	public int sync(ReserveFetcher fetcher, String factory) throws IOException {
+
+		long pairCount = fetcher.getPairCount(factory);
+
+		if (pairCount <= pairs.size()) return 0;
+
+		UniswapPoolList fetched = fetcher.fetchPairs(factory, pairs.size(), pairCount);
+
+		StringBuilder lines = new StringBuilder(fetched.size() * 134);
+
+		for (UniswapPool pool : fetched) {
+
+			lines.append(pairs.size()).append(',')
+				.append(pool.getMarketAddress()).append(',')
+				.append(pool.getToken0()).append(',')
+				.append(pool.getToken1()).append('\n');
+
+			pairs.add(pool.getMarketAddress());
+			tokens0.add(pool.getToken0());
+			tokens1.add(pool.getToken1());
+		}
+
+		try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII,
+				StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+			writer.write(lines.toString());
+		}
+
+		return fetched.size();
+	}
+
+	// every cached pair as a pool, reserves at zero
+	public UniswapPoolList toPools() {
+
+		UniswapPoolList pools = new UniswapPoolList(pairs.size());
+
+		for (int index = 0; index < pairs.size(); index++) {
+
+			UniswapPool pool = new UniswapPool();
+
+			pool.setMarketAddress(pairs.get(index));
+			pool.setToken0(tokens0.get(index));
+			pool.setToken1(tokens1.get(index));
+			pool.setReserves("0", "0");
+
+			pools.add(pool);
+		}
+
+		return pools;
+	}
+
+	// PairListCache uniswapV2Pairs.csv
+	public static void main(String[] args) throws Exception {
+
+		LocalTime currentTime = LocalTime.now();
+		System.out.println("Starting Sync at: " + currentTime);
+
+		PairListCache cache = new PairListCache((args.length > 0) ? args[0] : "uniswapV2Pairs.csv");
+
+		System.out.println("Cached Pairs: " + cache.size());
+
+		ReserveFetcher fetcher = new ReserveFetcher(new Web3jConnect(OnChainNodeList.ALCHEMY_MAINNET_KATE),
+				ReserveFetcher.UNISWAP_QUERY_MAINNET);
+
+		System.out.println("New Pairs: " + cache.sync(fetcher, ReserveFetcher.UNISWAP_V2_FACTORY));
+
+		UniswapPoolList pools = cache.toPools();
+
+		fetcher.refreshReserves(pools);
+
+		System.out.println("Number of Pools: " + pools.size() + " in " + fetcher.getCalls() + " eth_calls");
+
+		currentTime = LocalTime.now();
+		System.out.println("Finishing Sync at: " + currentTime);
+
+		fetcher.shutdown();
+	}
+
+}
@@ -0,0 +1,29 @@
+package com.calypso.uniswap;
+
+import java.io.File;
+
+public interface PoolSource {
+
+	// where the pools of a run come from, keyed by interned market address.
+	// files are memory mapped and strings are already in memory, both are decoded in
+	// parallel chunks (UniswapMarketsParallelParser). stdin cannot be mapped, it is
+	// streamed (UniswapMarketsStreamParser) in constant memory
+
+	UniswapPoolList load() throws Exception;
+
+	// a directory, a .snap snapshot or a .mkts file, by what the path is
+	public static PoolSource of(String path) {
+
+		if (new File(path).isDirectory()) return new DirectoryPoolSource(path);
+
+		if (path.endsWith(".snap")) return new SnapshotPoolSource(path);
+
+		return new FilePoolSource(path);
+	}
+
+	// the command line of the bots: a path, or the pools on stdin
+	public static PoolSource fromArgs(String[] args) {
+		return (args.length > 0) ? of(args[0]) : new StdinPoolSource();
+	}
+
+}
@@ -0,0 +1,401 @@
+package com.calypso.uniswap;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import org.web3j.abi.FunctionEncoder;
+import org.web3j.abi.FunctionReturnDecoder;
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Function;
+import org.web3j.abi.datatypes.Type;
+import org.web3j.abi.datatypes.generated.Uint256;
+import org.web3j.crypto.Keys;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.request.Transaction;
+import org.web3j.protocol.core.methods.response.EthCall;
+import org.web3j.tx.ReadonlyTransactionManager;
+import org.web3j.tx.exceptions.ContractCallException;
+import org.web3j.tx.gas.DefaultGasProvider;
+
+import com.calypso.blockchain.api.OnChainNodeList;
+import com.calypso.blockchain.api.web3j.Web3jConnect;
+import com.calypso.smartcontracts.FlashBotsUniswapQuery.FlashBotsUniswapQuery_Wrap;
+
+public class ReserveFetcher {
+
+	// pools and reserves straight from the chain, through the FlashBotsUniswapQuery contract:
+	//
+	//   getPairsByIndexRange(factory, start, stop) -> [token0, token1, pair] for every index
+	//   getReservesByPairs(pairs)                  -> [reserve0, reserve1, blockTimestampLast]
+	//
+	// the pair list and the pair addresses are cut in batches, one eth_call each, and the
+	// batches run at the same time on virtual threads, at most `concurrency` in flight.
+	// an eth_call the node refuses for its size (out of gas, response or execution limits) is
+	// split in two and retried, down to MIN_BATCH, and the batch size drops to the half for the
+	// next fetches, so it settles at what the node takes. any other failure, a dropped connection
+	// or a timeout on the way, fails the fetch without splitting.
+	// the pools land in a UniswapPoolList, reserves are set on the pools in place
+
+	public static final String UNISWAP_V2_FACTORY = "0x5C69bEe701ef814a2B6a3EDD4B1652CB9cc5aA6f";
+
+	// UniswapFlashQuery of the flashbots simple-arbitrage bot, on mainnet
+	public static final String UNISWAP_QUERY_MAINNET = "0x5EF1009b9FCD4fec3094a5564047e190D72Bd511";
+
+	public static final int DEFAULT_PAIRS_BATCH = 1000;
+	public static final int DEFAULT_RESERVES_BATCH = 1000;
+	public static final int DEFAULT_CONCURRENCY = 8;
+
+	public static final int MIN_BATCH = 16;
+
+	private static final String ZERO_ADDRESS = "0x0000000000000000000000000000000000000000";
+
+	// in the error messages of the nodes when a call is too big for them
+	private static final String[] SIZE_ERRORS = { "gas", "too big", "too large", "size", "limit", "timeout" };
+
+	private Web3j web3;
+	private FlashBotsUniswapQuery_Wrap query;
+
+	private volatile int pairsBatch = DEFAULT_PAIRS_BATCH;
+	private volatile int reservesBatch = DEFAULT_RESERVES_BATCH;
+
+	private Semaphore inFlight;
+
+	private ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+	// eth_calls sent, for the stats
+	private int calls = 0;
+
+	public ReserveFetcher(Web3jConnect connection, String queryAddress) {
+		this(connection, queryAddress, DEFAULT_CONCURRENCY);
+	}
+
+	@SuppressWarnings("deprecation")
+	public ReserveFetcher(Web3jConnect connection, String queryAddress, int concurrency) {
+
+		this.web3 = connection.getWeb3j();
+		
+		// only eth_call, no key needed
+		this.query = FlashBotsUniswapQuery_Wrap.load(queryAddress, connection.getWeb3j(),
+				new CallTransactionManager(connection.getWeb3j(), ZERO_ADDRESS),
+				DefaultGasProvider.GAS_PRICE, DefaultGasProvider.GAS_LIMIT);
+
+		this.inFlight = new Semaphore(concurrency);
+	}
+
+	public int getPairsBatch() {
+		return pairsBatch;
+	}
+
+	public void setPairsBatch(int pairsBatch) {
+		this.pairsBatch = Math.max(MIN_BATCH, pairsBatch);
+	}
+
+	public int getReservesBatch() {
+		return reservesBatch;
+	}
+
+	public void setReservesBatch(int reservesBatch) {
+		this.reservesBatch = Math.max(MIN_BATCH, reservesBatch);
+	}
+
+	public synchronized int getCalls() {
+		return calls;
+	}
+
+	// allPairsLength() of the factory
+	@SuppressWarnings("rawtypes")
+	public long getPairCount(String factory) throws IOException {
+
+		Function allPairsLength = new Function("allPairsLength", new ArrayList<Type>(),
+				List.<TypeReference<?>>of(new TypeReference<Uint256>() {}));
+
+		EthCall response = web3.ethCall(
+				Transaction.createEthCallTransaction(ZERO_ADDRESS, factory, FunctionEncoder.encode(allPairsLength)),
+				DefaultBlockParameterName.LATEST).send();
+
+		if (response.hasError()) {
+			throw new IOException("allPairsLength failed: " + response.getError().getMessage());
+		}
+
+		List<Type> values = FunctionReturnDecoder.decode(response.getValue(), allPairsLength.getOutputParameters());
+
+		return ((BigInteger) values.get(0).getValue()).longValue();
+	}
+
+	// every pair of the factory from index start to stop (exclusive), balances at zero.
+	// the contract cuts stop at allPairsLength, but start must be below it
+	public UniswapPoolList fetchPairs(String factory, long start, long stop) throws IOException {
+
+		List<Future<List<UniswapPool>>> pages = new ArrayList<Future<List<UniswapPool>>>();
+
+		// the pages of this fetch shrink the size for the next one only
+		int size = pairsBatch;
+
+		for (long from = start; from < stop; from += size) {
+
+			long pageStart = from;
+			long pageStop = Math.min(stop, from + size);
+
+			pages.add(executor.submit(() -> pairsPage(factory, pageStart, pageStop)));
+		}
+
+		UniswapPoolList pools = new UniswapPoolList((int) Math.min(stop - start, 1 << 20));
+
+		for (Future<List<UniswapPool>> page : pages) {
+			pools.addAll(join(page));
+		}
+
+		return pools;
+	}
+
+	// every pair of the factory with its reserves
+	public UniswapPoolList fetchPools(String factory) throws IOException {
+		return fetchPools(factory, getPairCount(factory));
+	}
+
+	public UniswapPoolList fetchPools(String factory, long pairCount) throws IOException {
+
+		UniswapPoolList pools = fetchPairs(factory, 0, pairCount);
+
+		refreshReserves(pools);
+
+		return pools;
+	}
+
+	// new reserves for every pool of the list, in place. returns how many pools changed
+	public int refreshReserves(UniswapPoolList pools) throws IOException {
+
+		List<Future<Integer>> batches = new ArrayList<Future<Integer>>();
+
+		int size = reservesBatch;
+
+		for (int from = 0; from < pools.size(); from += size) {
+
+			List<UniswapPool> batch = new ArrayList<UniswapPool>(size);
+
+			for (int id = from; id < Math.min(pools.size(), from + size); id++) {
+				batch.add(pools.get(id));
+			}
+
+			batches.add(executor.submit(() -> reserves(batch)));
+		}
+
+		int changed = 0;
+
+		for (Future<Integer> batch : batches) {
+			changed += join(batch);
+		}
+
+		return changed;
+	}
+
+	private List<UniswapPool> pairsPage(String factory, long start, long stop) throws Exception {
+
+		List<?> pairs;
+
+		try {
+			pairs = call(() -> query.getPairsByIndexRange(factory, BigInteger.valueOf(start), BigInteger.valueOf(stop)).send());
+		} catch (Exception e) {
+
+			if (stop - start <= MIN_BATCH || !isSizeError(e)) throw e;
+
+			// too big for the node, in two halves
+			long middle = start + (stop - start) / 2;
+
+			shrinkPairsBatch((int) (middle - start));
+
+			List<UniswapPool> page = pairsPage(factory, start, middle);
+			page.addAll(pairsPage(factory, middle, stop));
+
+			return page;
+		}
+
+		List<UniswapPool> page = new ArrayList<UniswapPool>(pairs.size());
+
+		for (Object pair : pairs) {
+
+			List<?> fields = (List<?>) nativeValue(pair);
+
+			UniswapPool pool = new UniswapPool();
+
+			// abi addresses decode in lowercase, the rest of Calypso keys by the checksum form
+			pool.setMarketAddress(Keys.toChecksumAddress((String) nativeValue(fields.get(2))));
+			pool.setToken0(Keys.toChecksumAddress((String) nativeValue(fields.get(0))));
+			pool.setToken1(Keys.toChecksumAddress((String) nativeValue(fields.get(1))));
+			pool.setReserves("0", "0");
+
+			page.add(pool);
+		}
+
+		return page;
+	}
+
+	private int reserves(List<UniswapPool> batch) throws Exception {
+
+		List<String> addresses = new ArrayList<String>(batch.size());
+
+		for (UniswapPool pool : batch) {
+			addresses.add(pool.getMarketAddress());
+		}
+
+		List<?> reserves;
+
+		try {
+			reserves = call(() -> query.getReservesByPairs(addresses).send());
+		} catch (Exception e) {
+
+			if (batch.size() <= MIN_BATCH || !isSizeError(e)) throw e;
+
+			int middle = batch.size() / 2;
+
+			shrinkReservesBatch(middle);
+
+			return reserves(new ArrayList<UniswapPool>(batch.subList(0, middle)))
+					+ reserves(new ArrayList<UniswapPool>(batch.subList(middle, batch.size())));
+		}
+
+		int changed = 0;
+
+		for (int contPool = 0; contPool < batch.size(); contPool++) {
+
+			List<?> fields = (List<?>) nativeValue(reserves.get(contPool));
+
+			String balance0 = nativeValue(fields.get(0)).toString();
+			String balance1 = nativeValue(fields.get(1)).toString();
+
+			UniswapPool pool = batch.get(contPool);
+
+			if (!balance0.equals(pool.getBalance0()) || !balance1.equals(pool.getBalance1())) {
+				pool.setReserves(balance0, balance1);
+				changed++;
+			}
+		}
+
+		return changed;
+	}
+
+	private synchronized void shrinkPairsBatch(int size) {
+		pairsBatch = Math.max(MIN_BATCH, Math.min(pairsBatch, size));
+	}
+
+	private synchronized void shrinkReservesBatch(int size) {
+		reservesBatch = Math.max(MIN_BATCH, Math.min(reservesBatch, size));
+	}
+
+	// the node answered the call with an error about its size, not a failure on the way
+	static boolean isSizeError(Exception e) {
+
+		if (!(e instanceof ContractCallException) || e.getMessage() == null) {
+			return false;
+		}
+
+		String message = e.getMessage().toLowerCase();
+
+		for (String error : SIZE_ERRORS) {
+			if (message.contains(error)) return true;
+		}
+
+		return false;
+	}
+
+	// one eth_call, waiting for a slot
+	private List<?> call(Callable<List<?>> call) throws Exception {
+
+		inFlight.acquire();
+
+		try {
+
+			synchronized (this) {
+				calls++;
+			}
+
+			return call.call();
+
+		} finally {
+			inFlight.release();
+		}
+	}
+
+	// convertToNative only opens the outer array, the static arrays inside are still abi types
+	private static Object nativeValue(Object value) {
+		return (value instanceof Type) ? ((Type<?>) value).getValue() : value;
+	}
+
+	private static <T> T join(Future<T> future) throws IOException {
+
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while fetching reserves", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+			throw new IOException("Failed to fetch reserves", e.getCause());
+		}
+	}
+
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	// the read only manager returns no value for an error that is not a revert, the decoders
+	// then see an empty list. every error of the node is thrown here with its message
+	private static class CallTransactionManager extends ReadonlyTransactionManager {
+
+		private Web3j web3;
+		private String from;
+
+		CallTransactionManager(Web3j web3, String from) {
+			super(web3, from);
+			this.web3 = web3;
+			this.from = from;
+		}
+
+		@Override
+		public String sendCall(String to, String data, DefaultBlockParameter block) throws IOException {
+
+			EthCall response = web3.ethCall(Transaction.createEthCallTransaction(from, to, data), block).send();
+
+			if (response.hasError()) {
+				throw new ContractCallException("eth_call failed: " + response.getError().getMessage());
+			}
+
+			return response.getValue();
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+
+		Web3jConnect connection = new Web3jConnect(OnChainNodeList.ALCHEMY_MAINNET_KATE);
+
+		ReserveFetcher fetcher = new ReserveFetcher(connection, UNISWAP_QUERY_MAINNET);
+
+		long pairCount = (args.length > 0) ? Long.parseLong(args[0]) : fetcher.getPairCount(UNISWAP_V2_FACTORY);
+
+		LocalTime currentTime = LocalTime.now();
+		System.out.println("Starting Fetch at: " + currentTime);
+
+		UniswapPoolList pools = fetcher.fetchPools(UNISWAP_V2_FACTORY, pairCount);
+
+		System.out.println("Number of Pools: " + pools.size() + " in " + fetcher.getCalls() + " eth_calls");
+
+		System.out.println("Changed on refresh: " + fetcher.refreshReserves(pools));
+
+		currentTime = LocalTime.now();
+		System.out.println("Finishing Fetch at: " + currentTime);
+
+		fetcher.shutdown();
+	}
+
+}
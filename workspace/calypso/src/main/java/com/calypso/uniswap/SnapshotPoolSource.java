@@ -0,0 +1,27 @@
+package com.calypso.uniswap;
+
+public class SnapshotPoolSource implements PoolSource {
+
+	// a binary snapshot written by UniswapPoolSnapshot, already decoded, only the pools to build
+
+	private String filename;
+
+	public SnapshotPoolSource(String filename) {
+		this.filename = filename;
+	}
+
+	@Override
+	public UniswapPoolList load() throws Exception {
+
+		UniswapPoolSnapshot snapshot = UniswapPoolSnapshot.open(filename);
+
+		UniswapPoolList pools = new UniswapPoolList(snapshot.poolCount());
+
+		for (int pool = 0; pool < snapshot.poolCount(); pool++) {
+			pools.add(snapshot.toPool(pool));
+		}
+
+		return pools;
+	}
+
+}
@@ -0,0 +1,32 @@
+package com.calypso.uniswap;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+public class StdinPoolSource implements PoolSource {
+
+	// everything piped in until the end of input, one array per line or a single one.
+	// streamed as it comes, nothing waits for the end of input
+
+	private InputStream in;
+
+	public StdinPoolSource() {
+		this(System.in);
+	}
+
+	public StdinPoolSource(InputStream in) {
+		this.in = in;
+	}
+
+	@Override
+	public UniswapPoolList load() throws Exception {
+
+		UniswapPoolList pools = new UniswapPoolList();
+
+		new UniswapMarketsStreamParser(new InputStreamReader(in, StandardCharsets.UTF_8)).parse(pools::add);
+
+		return pools;
+	}
+
+}
@@ -0,0 +1,21 @@
+package com.calypso.uniswap;
+
+import java.nio.charset.StandardCharsets;
+
+public class StringPoolSource implements PoolSource {
+
+	// the markets JSON passed as a string, as the node script hands it to Calypso_Yuz.
+	// already in memory, so it is decoded in parallel chunks
+
+	private String jsonPools;
+
+	public StringPoolSource(String jsonPools) {
+		this.jsonPools = jsonPools;
+	}
+
+	@Override
+	public UniswapPoolList load() throws Exception {
+		return new UniswapMarketsParallelParser(jsonPools.getBytes(StandardCharsets.UTF_8)).parse();
+	}
+
+}
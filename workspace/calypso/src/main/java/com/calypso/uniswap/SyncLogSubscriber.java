@@ -0,0 +1,278 @@
+package com.calypso.uniswap;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.methods.request.EthFilter;
+import org.web3j.protocol.core.methods.response.EthLog;
+import org.web3j.protocol.core.methods.response.Log;
+
+import com.calypso.blockchain.api.OnChainNodeList;
+import com.calypso.blockchain.api.web3j.Web3jConnect;
+
+public class SyncLogSubscriber {
+
+	// the reserves of the pools from the Sync events instead of polling every pair:
+	//
+	//   event Sync(uint112 reserve0, uint112 reserve1)   emitted by the pair after every swap, mint and burn
+	//
+	// every new block is one eth_getLogs on the Sync topic, for all the pairs of the chain.
+	// the data is the two reserves as 32 byte words, read straight from the hex without the
+	// abi decoder. only the last Sync of a pair in the range counts, and only pairs of the
+	// list are read. the list itself is never written: the pools that changed come back as
+	// new UniswapPool objects, the batch of the block, and the owner of the search applies
+	// them on its own thread (SearchSession.apply), so no search sees half set reserves.
+	// Calypso_test --sync runs it that way.
+	//
+	// a batch is only taken as known once the listener is done with it (commit). if onSync
+	// throws, the next poll reads the same blocks again and hands the same reserves.
+	//
+	// plain http, so it polls eth_blockNumber every pollMillis. removed logs of a reorg
+	// are skipped, the next Sync of the pair sets it right again
+
+	// keccak256("Sync(uint112,uint112)")
+	public static final String SYNC_TOPIC = "0x1c411e9a96e071241c2f21f7726b17ae89e3cab4c78be50e062b03a9fffbbad1";
+
+	public static final int DEFAULT_POLL_MILLIS = 1000;
+
+	// blocks per eth_getLogs when catching up, nodes cap the range and the response size
+	public static final int MAX_BLOCK_RANGE = 100;
+
+	public interface SyncListener {
+		// copies of the pools whose reserves changed, with the reserves of their last Sync
+		public void onSync(long block, UniswapPoolList changed) throws Exception;
+	}
+
+	private Web3j web3;
+
+	private UniswapPoolList pools;
+
+	// lower case address -> id in pools, logs come lower case, the pool files checksummed
+	private HashMap<String, Integer> ids = new HashMap<String, Integer>();
+
+	// id -> reserve0, reserve1 of the last batch, the list is not written so they are kept here
+	private List<String[]> reserves = new ArrayList<String[]>();
+
+	private long lastBlock;
+
+	// what the last poll read, for commit
+	private long pendingBlock = -1;
+	private LinkedHashMap<Integer, String[]> pending = new LinkedHashMap<Integer, String[]>();
+
+	private int pollMillis = DEFAULT_POLL_MILLIS;
+
+	private volatile boolean running = false;
+
+	// logs read and pools changed, for the stats
+	private long logs = 0;
+	private long updates = 0;
+
+	public SyncLogSubscriber(Web3jConnect connection, UniswapPoolList pools, long lastBlock) {
+
+		this.web3 = connection.getWeb3j();
+		this.pools = pools;
+		this.lastBlock = lastBlock;
+
+		index();
+	}
+
+	public long getLastBlock() {
+		return lastBlock;
+	}
+
+	public long getLogs() {
+		return logs;
+	}
+
+	public long getUpdates() {
+		return updates;
+	}
+
+	public void setPollMillis(int pollMillis) {
+		this.pollMillis = pollMillis;
+	}
+
+	// the pools added to the list after the constructor
+	private void index() {
+		for (int id = ids.size(); id < pools.size(); id++) {
+			UniswapPool pool = pools.get(id);
+			ids.put(pool.getMarketAddress().toLowerCase(Locale.ROOT), id);
+			reserves.add(new String[] { pool.getBalance0(), pool.getBalance1() });
+		}
+	}
+
+	// the pools changed by the Sync logs up to the head of the chain, as new objects. null when there is no new block.
+	// nothing is taken as known until commit, a poll without it reads the same blocks again
+	public UniswapPoolList poll() throws IOException {
+
+		long head = web3.ethBlockNumber().send().getBlockNumber().longValue();
+
+		if (head <= lastBlock) return null;
+
+		index();
+
+		// pool id -> reserves of its last Sync, in order of arrival
+		LinkedHashMap<Integer, String[]> last = new LinkedHashMap<Integer, String[]>();
+
+		for (long from = lastBlock + 1; from <= head; from += MAX_BLOCK_RANGE) {
+			collect(from, Math.min(head, from + MAX_BLOCK_RANGE - 1), last);
+		}
+
+		UniswapPoolList changed = new UniswapPoolList(last.size());
+
+		pending.clear();
+
+		for (Integer id : last.keySet()) {
+
+			String[] known = reserves.get(id);
+			String[] synced = last.get(id);
+
+			if (synced[0].equals(known[0]) && synced[1].equals(known[1])) continue;
+
+			pending.put(id, synced);
+
+			UniswapPool pool = pools.get(id);
+			UniswapPool update = new UniswapPool();
+
+			update.setMarketAddress(pool.getMarketAddress());
+			update.setToken0(pool.getToken0());
+			update.setToken1(pool.getToken1());
+			update.setReserves(synced[0], synced[1]);
+
+			changed.add(update);
+		}
+
+		pendingBlock = head;
+
+		return changed;
+	}
+
+	// the block of the last poll
+	public long getPendingBlock() {
+		return pendingBlock;
+	}
+
+	// the reserves and the head of the last poll are known from now on
+	public void commit() {
+
+		if (pendingBlock < 0) return;
+
+		for (Integer id : pending.keySet()) {
+			reserves.set(id, pending.get(id));
+		}
+
+		updates += pending.size();
+		lastBlock = pendingBlock;
+
+		pending.clear();
+		pendingBlock = -1;
+	}
+
+	@SuppressWarnings("rawtypes")
+	private void collect(long from, long to, HashMap<Integer, String[]> last) throws IOException {
+
+		EthFilter filter = new EthFilter(DefaultBlockParameter.valueOf(BigInteger.valueOf(from)),
+				DefaultBlockParameter.valueOf(BigInteger.valueOf(to)), Collections.<String>emptyList());
+
+		filter.addSingleTopic(SYNC_TOPIC);
+
+		EthLog response = web3.ethGetLogs(filter).send();
+
+		if (response.hasError()) {
+			throw new IOException("eth_getLogs " + from + "-" + to + " failed: " + response.getError().getMessage());
+		}
+
+		for (EthLog.LogResult result : response.getLogs()) {
+
+			Log log = (Log) result.get();
+
+			logs++;
+
+			if (log.isRemoved()) continue;
+
+			Integer id = ids.get(log.getAddress().toLowerCase(Locale.ROOT));
+
+			if (id == null) continue;
+
+			String[] reserves = decode(log.getData());
+
+			// keep the arrival order of the first Sync, the reserves of the last
+			if (reserves != null) last.put(id, reserves);
+		}
+	}
+
+	// 0x + reserve0 + reserve1, 64 hex chars each
+	static String[] decode(String data) {
+
+		if (data == null || data.length() < 2 + 128) return null;
+
+		return new String[] {
+				new BigInteger(data.substring(2, 66), 16).toString(),
+				new BigInteger(data.substring(66, 130), 16).toString() };
+	}
+
+	// polls until stop, every block with a change goes to the listener.
+	// an exception of the listener ends the run with the batch not committed
+	public void run(SyncListener listener) throws Exception {
+
+		running = true;
+
+		while (running) {
+
+			UniswapPoolList changed = poll();
+
+			if (changed == null) {
+				Thread.sleep(pollMillis);
+				continue;
+			}
+
+			if (!changed.isEmpty()) {
+				listener.onSync(pendingBlock, changed);
+			}
+
+			commit();
+		}
+	}
+
+	public void stop() {
+		running = false;
+	}
+
+	// SyncLogSubscriber [pools file] ; against the hardhat node, or a fork of mainnet
+	public static void main(String[] args) throws Exception {
+
+		UniswapPoolList pools = PoolSource.fromArgs(args).load();
+
+		Web3jConnect connection = new Web3jConnect(OnChainNodeList.LOCAL_RPC);
+
+		long start = connection.getBlockNumber().longValue();
+
+		SyncLogSubscriber subscriber = new SyncLogSubscriber(connection, pools, start);
+
+		System.out.println("Number of Pools: " + pools.size() + " from block " + start);
+
+		List<String> shown = new ArrayList<String>();
+
+		subscriber.run((block, changed) -> {
+
+			shown.clear();
+
+			for (UniswapPool pool : changed) {
+				if (shown.size() < 5) shown.add(pool.getMarketAddress());
+			}
+
+			System.out.println(LocalTime.now() + " block " + block + ": " + changed.size()
+					+ " pools changed " + shown + ", logs so far " + subscriber.getLogs());
+		});
+	}
+
+}
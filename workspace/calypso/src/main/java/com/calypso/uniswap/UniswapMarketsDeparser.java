@@ -1,14 +1,8 @@
 package com.calypso.uniswap;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
 import java.util.*;
 import java.time.LocalTime;
 
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-
 public class UniswapMarketsDeparser {
 	
 	
@@ -30,76 +24,25 @@ public class UniswapMarketsDeparser {
 
 	}
 	
-	// refactoring... three different functions doing the same stuff
+	// the three loaders share PoolSource, the HashMap kept for the callers
 		
 	public static HashMap<String, UniswapPool> init(String jsonPools) throws Exception {
 		
-		JSONParser parser = new JSONParser();
-		
-		HashMap<String, UniswapPool> poolList = new HashMap<String, UniswapPool>();
-		
-		JSONArray a = (JSONArray) parser.parse(jsonPools);
-
-
-		  for (Object o : a)
-		  {
-		    JSONObject market = (JSONObject) o;
-
-		    UniswapPool pool = new UniswapPool();
-		    
-			String marketAddress = (String )market.get("marketAddress");
-
-		    pool.setMarketAddress(marketAddress);
-			pool.setToken0((String) market.get("token0"));
-			pool.setBalance0((String) market.get("balance0"));
-			pool.setToken1((String) market.get("token1"));
-			pool.setBalance1((String) market.get("balance1"));
-			
-			poolList.put(marketAddress, pool);
-		    	    
-		  }
+		UniswapPoolList pools = new StringPoolSource(jsonPools).load();
 		
-		  if (poolList.isEmpty()) throw new Exception();
+		if (pools.isEmpty()) throw new Exception();
 
-		  return poolList;
+		return pools.toHashMap();
 	}
 	
 	public static HashMap<String, UniswapPool> initFromBuffer() throws Exception {
 		
-		BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
-	    
-		JSONParser parser = new JSONParser();
-		
-		HashMap<String, UniswapPool> poolList = new HashMap<String, UniswapPool>();
-		
-		String input = null;
+		// one array per line, read until stdin closes
+		UniswapPoolList pools = new StdinPoolSource().load();
 		
-		 while ((input = reader.readLine()) != null) {
-			 
-			  JSONArray jsonArray = (JSONArray) parser.parse(input);
-	          
-	          for (Object o : jsonArray)
-			  {
-	        	JSONObject market = (JSONObject) o;
-
-			    UniswapPool pool = new UniswapPool();
-			    
-				String marketAddress = (String )market.get("marketAddress");
-
-			    pool.setMarketAddress(marketAddress);
-				pool.setToken0((String) market.get("token0"));
-				pool.setBalance0((String) market.get("balance0"));
-				pool.setToken1((String) market.get("token1"));
-				pool.setBalance1((String) market.get("balance1"));
-				
-				poolList.put(marketAddress, pool);
-					    
-			  }
-
-		 } 
-		  if (poolList.isEmpty()) throw new Exception();
+		if (pools.isEmpty()) throw new Exception();
 
-		  return poolList;
+		return pools.toHashMap();
 	}
 
 
@@ -1,16 +1,14 @@
 package com.calypso.uniswap;
 
-import java.io.FileReader;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.function.Consumer;
 import java.time.LocalTime;
 
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-
 public class UniswapMarketsFileDeparser {
-	
-	private static JSONParser parser = new JSONParser();
 
 	public UniswapMarketsFileDeparser() {
 		// TODO Auto-generated constructor stub
@@ -38,7 +36,8 @@ public class UniswapMarketsFileDeparser {
 		String FILE = "parsedMarkets";
 		String EXTENSION = ".mkts";
 
-		String POOLS_LIST_FILE = ROOT + FILE + BLOCK + EXTENSION;
+		// or a file given on the command line
+		String POOLS_LIST_FILE = (args.length > 0) ? args[0] : ROOT + FILE + BLOCK + EXTENSION;
 
 		HashMap<String, UniswapPool> poolList = UniswapMarketsFileDeparser.initFromFile(POOLS_LIST_FILE);
 	
@@ -54,31 +53,21 @@ public class UniswapMarketsFileDeparser {
 	
 	public static HashMap<String, UniswapPool> initFromFile(String filename) throws Exception {
 		
-		 HashMap<String, UniswapPool> poolList = new HashMap<String, UniswapPool>();
+		// mapped and decoded in chunks, the file is never held as a JSONArray
+		UniswapPoolList pools = new FilePoolSource(filename).load();
 		
-		JSONArray a = (JSONArray) parser.parse(new FileReader(filename));
-
-		  for (Object o : a)
-		  {
-		    JSONObject market = (JSONObject) o;
+		if (pools.isEmpty()) throw new Exception();
 
-		    UniswapPool pool = new UniswapPool();
-		    
-			String marketAddress = (String )market.get("marketAddress");
-
-		    pool.setMarketAddress(marketAddress);
-			pool.setToken0((String) market.get("token0"));
-			pool.setBalance0((String) market.get("balance0"));
-			pool.setToken1((String) market.get("token1"));
-			pool.setBalance1((String) market.get("balance1"));
-			
-			poolList.put(marketAddress, pool);
-		    	    
-		  }
+		return pools.toHashMap();
+	}
+	
+	// every market of the file to sink, as it is read
+	public static int initFromFile(String filename, Consumer<UniswapPool> sink) throws Exception {
 		
-		  if (poolList.isEmpty()) throw new Exception();
-
-		  return poolList;
+		try (Reader reader = new InputStreamReader(new FileInputStream(filename), StandardCharsets.UTF_8)) {
+			
+			return new UniswapMarketsStreamParser(reader).parse(sink);
+		}
 	}
 
 	public static void printPoolList(HashMap<String, UniswapPool> poolList) throws Exception {
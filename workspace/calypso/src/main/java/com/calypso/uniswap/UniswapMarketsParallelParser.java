@@ -0,0 +1,221 @@
+package com.calypso.uniswap;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+public class UniswapMarketsParallelParser {
+
+	// the markets JSON of a whole file, in memory or memory mapped, decoded in chunks on a
+	// ForkJoinPool. a mapped file is read by the chunks straight from the page cache, the heap
+	// only holds the decoded markets.
+	//
+	// one pass over the bytes finds the commas between the markets of the top level
+	// arrays (outside strings and nested values, UTF-8 never hides a '"', ',' or bracket
+	// in a multi byte char). the input is cut at some of them, every chunk is closed
+	// back into an array, "[" + ... + "]", and parsed by its own UniswapMarketsStreamParser.
+	// the chunks are put back in input order, so a market read twice keeps the later one
+
+	// below this a single chunk, the split is not worth it
+	private static final int MIN_CHUNK_BYTES = 1 << 20;
+
+	private static final byte[] OPEN = {'['};
+	private static final byte[] CLOSE = {']'};
+
+	private ByteBuffer json;
+	private int length;
+
+	public UniswapMarketsParallelParser(byte[] json) {
+		this(json, json.length);
+	}
+
+	public UniswapMarketsParallelParser(byte[] json, int length) {
+		this(ByteBuffer.wrap(json, 0, length));
+	}
+
+	// from the position to the limit, read with absolute gets
+	public UniswapMarketsParallelParser(ByteBuffer json) {
+		this.json = json.slice();
+		this.length = this.json.remaining();
+	}
+
+	// the file mapped read only, a map holds at most Integer.MAX_VALUE bytes
+	public static UniswapMarketsParallelParser map(File file) throws IOException {
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Too large to map: " + file);
+			}
+
+			// the map stays valid after the channel is closed
+			return new UniswapMarketsParallelParser(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	public UniswapPoolList parse() throws IOException {
+		return parse(ForkJoinPool.commonPool());
+	}
+
+	public UniswapPoolList parse(ForkJoinPool pool) throws IOException {
+
+		UniswapPoolList pools = new UniswapPoolList();
+
+		parse(pool, pools);
+
+		return pools;
+	}
+
+	// into pools, returns how many markets were read
+	public int parse(ForkJoinPool pool, UniswapPoolList pools) throws IOException {
+
+		// a few chunks per worker to even out, none to split on a single one
+		int chunks = (pool.getParallelism() > 1) ? Math.max(1, Math.min(4 * pool.getParallelism(), length / MIN_CHUNK_BYTES)) : 1;
+
+		int[] cuts = cuts(chunks);
+
+		if (cuts.length == 2) {
+			return new UniswapMarketsStreamParser(reader(0, length, false, false)).parse(pools::add);
+		}
+
+		List<ForkJoinTask<List<UniswapPool>>> decoders = new ArrayList<ForkJoinTask<List<UniswapPool>>>();
+
+		for (int chunk = 0; chunk + 1 < cuts.length; chunk++) {
+
+			// a cut is the index of its comma, the next chunk starts after it
+			int start = (chunk == 0) ? 0 : cuts[chunk] + 1;
+			int end = cuts[chunk + 1];
+			boolean first = (chunk == 0);
+			boolean last = (chunk + 2 == cuts.length);
+
+			decoders.add(pool.submit(() -> {
+
+				List<UniswapPool> markets = new ArrayList<UniswapPool>();
+
+				new UniswapMarketsStreamParser(reader(start, end, !first, !last)).parse(markets::add);
+
+				return markets;
+			}));
+		}
+
+		int markets = 0;
+
+		for (ForkJoinTask<List<UniswapPool>> decoder : decoders) {
+
+			List<UniswapPool> chunk;
+
+			try {
+				chunk = decoder.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while parsing markets", e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+				throw new IOException("Failed to parse markets", e.getCause());
+			}
+
+			for (UniswapPool market : chunk) {
+				pools.add(market);
+			}
+
+			markets += chunk.size();
+		}
+
+		return markets;
+	}
+
+	// 0, the commas to cut at, length. fewer than chunks - 1 cuts if the markets are few
+	private int[] cuts(int chunks) {
+
+		int[] cuts = new int[chunks + 1];
+		int count = 1;
+
+		long step = length / chunks;
+		long next = step;
+
+		int depth = 0;
+		boolean inString = false;
+
+		for (int i = 0; i < length && count < chunks; i++) {
+
+			byte c = json.get(i);
+
+			if (inString) {
+				if (c == '\\') i++;
+				else if (c == '"') inString = false;
+				continue;
+			}
+
+			switch (c) {
+				case '"': inString = true; break;
+				case '[': case '{': depth++; break;
+				case ']': case '}': depth--; break;
+				case ',':
+					// between two markets of a top level array
+					if (depth == 1 && i >= next) {
+						cuts[count++] = i;
+						next = i + step;
+					}
+					break;
+				default: break;
+			}
+		}
+
+		cuts[count++] = length;
+
+		return (count == cuts.length) ? cuts : Arrays.copyOf(cuts, count);
+	}
+
+	private InputStreamReader reader(int start, int end, boolean open, boolean close) {
+
+		InputStream chunk = new BufferInputStream(json.slice(start, end - start));
+
+		if (open) chunk = new SequenceInputStream(new ByteArrayInputStream(OPEN), chunk);
+		if (close) chunk = new SequenceInputStream(chunk, new ByteArrayInputStream(CLOSE));
+
+		return new InputStreamReader(chunk, StandardCharsets.UTF_8);
+	}
+
+	// a slice of the JSON, each chunk reads its own slice
+	private static class BufferInputStream extends InputStream {
+
+		private ByteBuffer buffer;
+
+		BufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? (buffer.get() & 0xff) : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+
+			if (len == 0) return 0;
+
+			if (!buffer.hasRemaining()) return -1;
+
+			int n = Math.min(len, buffer.remaining());
+
+			buffer.get(b, off, n);
+
+			return n;
+		}
+	}
+
+}
@@ -0,0 +1,274 @@
+package com.calypso.uniswap;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.function.Consumer;
+
+public class UniswapMarketsStreamParser {
+
+	// reads the markets JSON, [{ "marketAddress": ..., "token0": ..., "balance0": ...,
+	// "token1": ..., "balance1": ... }, ...], a character at a time and hands every
+	// market to a sink as soon as its object closes. no JSONArray / JSONObject is built,
+	// memory stays at one buffer and one pool whatever the size of the file.
+
+	// several arrays in a row are read one after the other (stdin sends one per line).
+	// other keys and nested values are skipped, balances may be strings or numbers
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private Reader reader;
+
+	private char[] buffer = new char[BUFFER_SIZE];
+	private int position = 0;
+	private int limit = 0;
+	private long consumed = 0; // chars before buffer[0], for the error messages
+
+	// reused for every key and value
+	private StringBuilder text = new StringBuilder(128);
+
+	public UniswapMarketsStreamParser(Reader reader) {
+		this.reader = reader;
+	}
+
+	// returns how many markets went to the sink
+	public int parse(Consumer<UniswapPool> sink) throws IOException {
+
+		int markets = 0;
+
+		for (int c = skipWhitespace(); c != -1; c = skipWhitespace()) {
+
+			expect('[');
+
+			if (skipWhitespace() == ']') {
+				position++;
+				continue;
+			}
+
+			while (true) {
+
+				sink.accept(parseMarket());
+				markets++;
+
+				int separator = skipWhitespace();
+
+				position++;
+
+				if (separator == ']') break;
+
+				if (separator != ',') throw error("',' or ']' expected");
+			}
+		}
+
+		return markets;
+	}
+
+	private UniswapPool parseMarket() throws IOException {
+
+		String marketAddress = null;
+		String token0 = null;
+		String balance0 = null;
+		String token1 = null;
+		String balance1 = null;
+
+		skipWhitespace();
+		expect('{');
+
+		if (skipWhitespace() == '}') {
+			position++;
+		} else {
+
+			while (true) {
+
+				skipWhitespace();
+				readString();
+
+				skipWhitespace();
+				expect(':');
+
+				if ("marketAddress".contentEquals(text)) marketAddress = readScalar();
+				else if ("token0".contentEquals(text)) token0 = readScalar();
+				else if ("balance0".contentEquals(text)) balance0 = readScalar();
+				else if ("token1".contentEquals(text)) token1 = readScalar();
+				else if ("balance1".contentEquals(text)) balance1 = readScalar();
+				else skipValue();
+
+				int separator = skipWhitespace();
+
+				position++;
+
+				if (separator == '}') break;
+
+				if (separator != ',') throw error("',' or '}' expected");
+			}
+		}
+
+		UniswapPool pool = new UniswapPool();
+
+		pool.setMarketAddress(marketAddress);
+		pool.setToken0(token0);
+		pool.setBalance0(balance0);
+		pool.setToken1(token1);
+		pool.setBalance1(balance1);
+
+		return pool;
+	}
+
+	// a string or a number, null for null
+	private String readScalar() throws IOException {
+
+		int c = skipWhitespace();
+
+		if (c == '"') {
+			readString();
+			return text.toString();
+		}
+
+		readLiteral();
+
+		return "null".contentEquals(text) ? null : text.toString();
+	}
+
+	private void skipValue() throws IOException {
+
+		int c = skipWhitespace();
+
+		if (c == '"') {
+			readString();
+			return;
+		}
+
+		if (c != '{' && c != '[') {
+			readLiteral();
+			return;
+		}
+
+		// nested object or array, only the strings can hide a bracket
+		int depth = 0;
+
+		do {
+			c = peek();
+
+			if (c == -1) throw error("unexpected end of input");
+
+			if (c == '"') {
+				readString();
+				continue;
+			}
+
+			position++;
+
+			if (c == '{' || c == '[') depth++;
+			else if (c == '}' || c == ']') depth--;
+
+		} while (depth > 0);
+	}
+
+	// into text, without the quotes
+	private void readString() throws IOException {
+
+		expect('"');
+
+		text.setLength(0);
+
+		while (true) {
+
+			int c = read();
+
+			if (c == -1) throw error("unterminated string");
+
+			if (c == '"') return;
+
+			if (c != '\\') {
+				text.append((char) c);
+				continue;
+			}
+
+			c = read();
+
+			switch (c) {
+				case '"': case '\\': case '/': text.append((char) c); break;
+				case 'b': text.append('\b'); break;
+				case 'f': text.append('\f'); break;
+				case 'n': text.append('\n'); break;
+				case 'r': text.append('\r'); break;
+				case 't': text.append('\t'); break;
+				case 'u': {
+					int code = 0;
+					for (int i = 0; i < 4; i++) {
+						int digit = Character.digit(read(), 16);
+						if (digit < 0) throw error("bad \\u escape");
+						code = (code << 4) | digit;
+					}
+					text.append((char) code);
+					break;
+				}
+				default: throw error("bad escape");
+			}
+		}
+	}
+
+	// number, true, false or null, into text
+	private void readLiteral() throws IOException {
+
+		text.setLength(0);
+
+		for (int c = peek(); c != -1 && c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c); c = peek()) {
+			text.append((char) c);
+			position++;
+		}
+
+		if (text.length() == 0) throw error("value expected");
+	}
+
+	private void expect(char expected) throws IOException {
+
+		if (read() != expected) throw error("'" + expected + "' expected");
+	}
+
+	// the next non blank char, not consumed
+	private int skipWhitespace() throws IOException {
+
+		int c = peek();
+
+		while (c != -1 && Character.isWhitespace(c)) {
+			position++;
+			c = peek();
+		}
+
+		return c;
+	}
+
+	private int peek() throws IOException {
+
+		if (position == limit && !fill()) return -1;
+
+		return buffer[position];
+	}
+
+	private int read() throws IOException {
+
+		if (position == limit && !fill()) return -1;
+
+		return buffer[position++];
+	}
+
+	private boolean fill() throws IOException {
+
+		consumed += limit;
+
+		position = 0;
+		limit = reader.read(buffer, 0, buffer.length);
+
+		if (limit <= 0) {
+			limit = 0;
+			return false;
+		}
+
+		return true;
+	}
+
+	private IOException error(String message) {
+		return new IOException("Malformed markets JSON at char " + (consumed + position) + ": " + message);
+	}
+
+}
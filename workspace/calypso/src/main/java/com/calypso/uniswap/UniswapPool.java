@@ -22,6 +22,15 @@ public class UniswapPool {
 	private String token1name;
 	private String balance1;
 	
+	// balances parsed once, when set
+	private double reserves0 = 0.0;
+	private double reserves1 = 0.0;
+	
+	// -log(fee * ratio) of both ways, computed on first use after the reserves change
+	private double weight01 = 0.0; // Token0 -> Token1
+	private double weight10 = 0.0; // Token1 -> Token0
+	private boolean weightsValid = false;
+	
 	private double K = 0.0;
 	private double sqtK = 0.0; 
 	private double Tetaij = 0.0; 
@@ -62,9 +71,6 @@ public class UniswapPool {
 			
 			this.setToken1(tokenj);
 			this.setBalance1(balancej);
-			
-			this.K = this.calculateK();
-			this.calculateHyperbolicParams();
 	}
 	
 	
@@ -115,6 +121,8 @@ public class UniswapPool {
 
 	public void setBalance0(String balance0) {
 		this.balance0 = balance0;
+		this.reserves0 = (balance0 == null) ? 0.0 : new BigInteger(balance0).doubleValue();
+		this.reservesChanged();
 	}
 
 	public String getToken1() {
@@ -131,6 +139,31 @@ public class UniswapPool {
 
 	public void setBalance1(String balance1) {
 		this.balance1 = balance1;
+		this.reserves1 = (balance1 == null) ? 0.0 : new BigInteger(balance1).doubleValue();
+		this.reservesChanged();
+	}
+	
+	// both balances of a new block, K and the weights follow once
+	public void setReserves(String balance0, String balance1) {
+		this.balance0 = balance0;
+		this.reserves0 = new BigInteger(balance0).doubleValue();
+		this.balance1 = balance1;
+		this.reserves1 = new BigInteger(balance1).doubleValue();
+		this.reservesChanged();
+	}
+	
+	public double getReserves0() {
+		return reserves0;
+	}
+	
+	public double getReserves1() {
+		return reserves1;
+	}
+	
+	private void reservesChanged() {
+		this.weightsValid = false;
+		this.K = this.calculateK();
+		this.calculateHyperbolicParams();
 	}
 	
 	public Double getK() {
@@ -138,8 +171,7 @@ public class UniswapPool {
 	}
 	
 	private double calculateK() {
-	    return (new BigInteger(this.getBalance0()).doubleValue()) *
-	    		(new BigInteger(this.getBalance1()).doubleValue());
+	    return this.reserves0 * this.reserves1;
 	}
 	
 	private void calculateHyperbolicParams() {
@@ -152,8 +184,8 @@ public class UniswapPool {
 	    // b = sqtK * cosTetaij;
 	    // a = sqtK * (1 / cosTetaij);
 	    
-	    a = (new BigInteger(this.getBalance0()).doubleValue());
-	    b = (new BigInteger(this.getBalance1()).doubleValue());
+	    a = this.reserves0;
+	    b = this.reserves1;
 	}
 	
 	private double getSqtK() {
@@ -188,14 +220,32 @@ public class UniswapPool {
 		
 		Double[] prices = new Double[2];
 				
-		prices[0] = UniswapPricingFunctions.priceByYus_Kadu(new BigInteger(this.getBalance0()), new BigInteger(this.getBalance1())); 
+		prices[0] = Double.valueOf(this.getWeight01()); 
 		//prices[1] = new Double(UniswapPricingFunctions.YUS_CONSTANT.doubleValue() - prices[0].byteValue());
-		prices[1] = UniswapPricingFunctions.priceByYus_Kadu(new BigInteger(this.getBalance1()), new BigInteger(this.getBalance0()));
+		prices[1] = Double.valueOf(this.getWeight10());
 		
 		
 		return prices;
 	}
 	
+	// same as getMidPricing()[0], without boxing
+	public double getWeight01() {
+		if (!weightsValid) this.calculateWeights();
+		return weight01;
+	}
+	
+	// same as getMidPricing()[1], without boxing
+	public double getWeight10() {
+		if (!weightsValid) this.calculateWeights();
+		return weight10;
+	}
+	
+	private void calculateWeights() {
+		weight01 = UniswapPricingFunctions.priceByYus_Kadu(this.reserves0, this.reserves1);
+		weight10 = UniswapPricingFunctions.priceByYus_Kadu(this.reserves1, this.reserves0);
+		weightsValid = true;
+	}
+	
 	public Double[] getExecutionPricing() {
 		
 		// Double[0] Token0 -> Token1, TokenI -> TokenJ, Reserves0 / Reserves1
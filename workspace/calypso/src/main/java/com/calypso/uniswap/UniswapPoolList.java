@@ -0,0 +1,126 @@
+package com.calypso.uniswap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.calypso.general.datastructures.NodeInterner;
+
+public class UniswapPoolList implements Iterable<UniswapPool> {
+
+	// the pools of a markets file, by dense id in the order they were read.
+	// the market address is interned once, the pools sit in a plain array,
+	// so there is no map entry or boxed hash per pool as in a HashMap<String, UniswapPool>.
+	// a market read twice keeps its id and takes the later reserves
+
+	private NodeInterner<String> addresses;
+	private UniswapPool[] pools;
+
+	public UniswapPoolList() {
+		this(16);
+	}
+
+	public UniswapPoolList(int expectedSize) {
+		addresses = new NodeInterner<String>(expectedSize);
+		pools = new UniswapPool[Math.max(16, expectedSize)];
+	}
+
+	// returns the id of the pool
+	public int add(UniswapPool pool) {
+
+		int id = addresses.intern(pool.getMarketAddress());
+
+		if (id == pools.length) {
+			pools = Arrays.copyOf(pools, id << 1);
+		}
+
+		pools[id] = pool;
+
+		return id;
+	}
+
+	public void addAll(Iterable<UniswapPool> pools) {
+
+		for (UniswapPool pool : pools) {
+			add(pool);
+		}
+	}
+
+	public int size() {
+		return addresses.size();
+	}
+
+	public boolean isEmpty() {
+		return addresses.size() == 0;
+	}
+
+	public UniswapPool get(int id) {
+
+		if (id < 0 || id >= addresses.size()) {
+			throw new IndexOutOfBoundsException("Pool id " + id + " out of " + addresses.size());
+		}
+
+		return pools[id];
+	}
+
+	// null if the market is not in the list
+	public UniswapPool get(String marketAddress) {
+
+		int id = addresses.indexOf(marketAddress);
+
+		return (id == NodeInterner.ABSENT) ? null : pools[id];
+	}
+
+	public int indexOf(String marketAddress) {
+		return addresses.indexOf(marketAddress);
+	}
+
+	public boolean contains(String marketAddress) {
+		return addresses.contains(marketAddress);
+	}
+
+	public UniswapPool[] toArray() {
+		return Arrays.copyOf(pools, addresses.size());
+	}
+
+	// for the code still on the HashMap
+	public HashMap<String, UniswapPool> toHashMap() {
+
+		HashMap<String, UniswapPool> poolList = new HashMap<String, UniswapPool>(Math.max(16, (int) (size() / 0.75f) + 1));
+
+		for (int id = 0; id < size(); id++) {
+			poolList.put(addresses.get(id), pools[id]);
+		}
+
+		return poolList;
+	}
+
+	@Override
+	public Iterator<UniswapPool> iterator() {
+
+		return new Iterator<UniswapPool>() {
+
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < size();
+			}
+
+			@Override
+			public UniswapPool next() {
+
+				if (next >= size()) throw new NoSuchElementException();
+
+				return pools[next++];
+			}
+		};
+	}
+
+	@Override
+	public String toString() {
+		return "UniswapPoolList[" + size() + "]";
+	}
+
+}
@@ -0,0 +1,298 @@
+package com.calypso.uniswap;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.calypso.algorithms.yuzhang.UniswapPricingFunctions;
+import com.calypso.general.datastructures.NodeInterner;
+
+public class UniswapPoolSnapshot {
+
+	// binary copy of a parsedMarkets<BLOCK>.mkts file, read through a memory map.
+	//
+	// header:  magic "CLPS", version, token count, pool count (4 ints)
+	// tokens:  token count x ADDRESS_BYTES, the address as ASCII, zero padded
+	// pools:   pool count x RECORD_BYTES
+	//          market address (ADDRESS_BYTES), token0 id, token1 id (ints),
+	//          reserves0, reserves1 (unsigned 128 bit, big endian)
+	//
+	// opening maps the file and reads the header only. the getters read the
+	// records in place, so a pool costs nothing until it is asked for.
+
+	public static final int MAGIC = 0x434C5053; // CLPS
+	public static final int VERSION = 1;
+
+	public static final int ADDRESS_BYTES = 42; // 0x + 40 hex
+	public static final int RESERVES_BYTES = 16;
+
+	public static final int HEADER_BYTES = 16;
+	public static final int RECORD_BYTES = ADDRESS_BYTES + 4 + 4 + 2 * RESERVES_BYTES;
+
+	private static final double TWO_TO_64 = 18446744073709551616.0;
+
+	private static final BigInteger MAX_RESERVES = BigInteger.ONE.shiftLeft(8 * RESERVES_BYTES);
+
+	private MappedByteBuffer buffer;
+	private int tokenCount;
+	private int poolCount;
+	private int poolsOffset;
+
+	private UniswapPoolSnapshot(MappedByteBuffer buffer) throws IOException {
+
+		this.buffer = buffer;
+
+		if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+			throw new IOException("Not a pool snapshot");
+		}
+
+		if (buffer.getInt(4) != VERSION) {
+			throw new IOException("Pool snapshot version " + buffer.getInt(4) + ", expected " + VERSION);
+		}
+
+		tokenCount = buffer.getInt(8);
+		poolCount = buffer.getInt(12);
+		poolsOffset = HEADER_BYTES + tokenCount * ADDRESS_BYTES;
+
+		if (buffer.capacity() < poolsOffset + (long) poolCount * RECORD_BYTES) {
+			throw new IOException("Pool snapshot truncated");
+		}
+	}
+
+	public static UniswapPoolSnapshot open(String filename) throws IOException {
+
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+
+			// the map stays valid after the channel is closed
+			return new UniswapPoolSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	public int tokenCount() {
+		return tokenCount;
+	}
+
+	public int poolCount() {
+		return poolCount;
+	}
+
+	public String tokenAddress(int token) {
+		return readAddress(HEADER_BYTES + token * ADDRESS_BYTES);
+	}
+
+	public String marketAddress(int pool) {
+		return readAddress(record(pool));
+	}
+
+	public int token0(int pool) {
+		return buffer.getInt(record(pool) + ADDRESS_BYTES);
+	}
+
+	public int token1(int pool) {
+		return buffer.getInt(record(pool) + ADDRESS_BYTES + 4);
+	}
+
+	// as double, the way the pricing uses them
+	public double reserves0(int pool) {
+		return readReserves(record(pool) + ADDRESS_BYTES + 8);
+	}
+
+	public double reserves1(int pool) {
+		return readReserves(record(pool) + ADDRESS_BYTES + 8 + RESERVES_BYTES);
+	}
+
+	public BigInteger exactReserves0(int pool) {
+		return readExactReserves(record(pool) + ADDRESS_BYTES + 8);
+	}
+
+	public BigInteger exactReserves1(int pool) {
+		return readExactReserves(record(pool) + ADDRESS_BYTES + 8 + RESERVES_BYTES);
+	}
+
+	// the G edge weights of the pool, same as UniswapPool.getWeight01() / getWeight10()
+	public double weight01(int pool) {
+		return UniswapPricingFunctions.priceByYus_Kadu(reserves0(pool), reserves1(pool));
+	}
+
+	public double weight10(int pool) {
+		return UniswapPricingFunctions.priceByYus_Kadu(reserves1(pool), reserves0(pool));
+	}
+
+	public UniswapPool toPool(int pool) {
+
+		UniswapPool market = new UniswapPool();
+
+		market.setMarketAddress(marketAddress(pool));
+		market.setToken0(tokenAddress(token0(pool)));
+		market.setBalance0(exactReserves0(pool).toString());
+		market.setToken1(tokenAddress(token1(pool)));
+		market.setBalance1(exactReserves1(pool).toString());
+
+		return market;
+	}
+
+	public UniswapPool[] toPools() {
+
+		UniswapPool[] pools = new UniswapPool[poolCount];
+
+		for (int pool = 0; pool < poolCount; pool++) {
+			pools[pool] = toPool(pool);
+		}
+
+		return pools;
+	}
+
+	private int record(int pool) {
+
+		if (pool < 0 || pool >= poolCount) {
+			throw new IndexOutOfBoundsException("Pool " + pool + " out of " + poolCount);
+		}
+
+		return poolsOffset + pool * RECORD_BYTES;
+	}
+
+	private String readAddress(int offset) {
+
+		int length = 0;
+
+		while (length < ADDRESS_BYTES && buffer.get(offset + length) != 0) length++;
+
+		byte[] address = new byte[length];
+
+		buffer.get(offset, address);
+
+		return new String(address, StandardCharsets.US_ASCII);
+	}
+
+	private double readReserves(int offset) {
+
+		long high = buffer.getLong(offset);
+		long low = buffer.getLong(offset + 8);
+
+		return unsigned(high) * TWO_TO_64 + unsigned(low);
+	}
+
+	private static double unsigned(long value) {
+		return (value >= 0) ? value : (value >>> 1) * 2.0 + (value & 1);
+	}
+
+	private BigInteger readExactReserves(int offset) {
+
+		byte[] reserves = new byte[RESERVES_BYTES];
+
+		buffer.get(offset, reserves);
+
+		return new BigInteger(1, reserves);
+	}
+
+	// converter
+
+	public static void write(List<UniswapPool> pools, String filename) throws IOException {
+
+		NodeInterner<String> tokens = new NodeInterner<String>(pools.size());
+
+		int[] token0 = new int[pools.size()];
+		int[] token1 = new int[pools.size()];
+
+		for (int pool = 0; pool < pools.size(); pool++) {
+			token0[pool] = tokens.intern(pools.get(pool).getToken0());
+			token1[pool] = tokens.intern(pools.get(pool).getToken1());
+		}
+
+		ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + tokens.size() * ADDRESS_BYTES + pools.size() * RECORD_BYTES);
+
+		out.putInt(MAGIC).putInt(VERSION).putInt(tokens.size()).putInt(pools.size());
+
+		for (int token = 0; token < tokens.size(); token++) {
+			putAddress(out, tokens.get(token));
+		}
+
+		for (int pool = 0; pool < pools.size(); pool++) {
+
+			UniswapPool market = pools.get(pool);
+
+			putAddress(out, market.getMarketAddress());
+			out.putInt(token0[pool]).putInt(token1[pool]);
+			putReserves(out, new BigInteger(market.getBalance0()));
+			putReserves(out, new BigInteger(market.getBalance1()));
+		}
+
+		out.flip();
+
+		try (FileChannel channel = FileChannel.open(Paths.get(filename),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+			while (out.hasRemaining()) channel.write(out);
+		}
+	}
+
+	public static int convert(String mktsFilename, String snapshotFilename) throws Exception {
+
+		List<UniswapPool> pools = new ArrayList<UniswapPool>();
+
+		UniswapMarketsFileDeparser.initFromFile(mktsFilename, pools::add);
+
+		write(pools, snapshotFilename);
+
+		return pools.size();
+	}
+
+	private static void putAddress(ByteBuffer out, String address) {
+
+		byte[] bytes = address.getBytes(StandardCharsets.US_ASCII);
+
+		if (bytes.length > ADDRESS_BYTES) {
+			throw new IllegalArgumentException("Address longer than " + ADDRESS_BYTES + " chars: " + address);
+		}
+
+		out.put(bytes);
+
+		for (int i = bytes.length; i < ADDRESS_BYTES; i++) out.put((byte) 0);
+	}
+
+	private static void putReserves(ByteBuffer out, BigInteger reserves) {
+
+		if (reserves.signum() < 0 || reserves.compareTo(MAX_RESERVES) >= 0) {
+			throw new IllegalArgumentException("Reserves do not fit 128 bits: " + reserves);
+		}
+
+		byte[] bytes = reserves.toByteArray(); // may carry a leading sign byte
+
+		int length = Math.min(bytes.length, RESERVES_BYTES);
+
+		for (int i = length; i < RESERVES_BYTES; i++) out.put((byte) 0);
+
+		out.put(bytes, bytes.length - length, length);
+	}
+
+	public static void main(String[] args) throws Exception {
+
+		// UniswapPoolSnapshot parsedMarkets21078701.mkts parsedMarkets21078701.snap
+
+		LocalTime currentTime = LocalTime.now();
+		System.out.println("Starting Conversion at: " + currentTime);
+
+		int pools = convert(args[0], args[1]);
+
+		System.out.println("Number of Pools: " + pools);
+
+		long start = System.nanoTime();
+
+		UniswapPoolSnapshot snapshot = UniswapPoolSnapshot.open(args[1]);
+
+		System.out.println("Opened " + snapshot.poolCount() + " pools, " + snapshot.tokenCount() + " tokens in "
+				+ ((System.nanoTime() - start) / 1000) + " us");
+
+		currentTime = LocalTime.now();
+		System.out.println("Finishing Conversion at: " + currentTime);
+	}
+
+}
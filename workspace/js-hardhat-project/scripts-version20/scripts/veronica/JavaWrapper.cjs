@@ -1,5 +1,6 @@
 const { spawn } = require('child_process');
 const path = require('path');
+const http = require('http');
 
 class JavaWrapper {
 
@@ -47,6 +48,73 @@ class JavaWrapper {
     });
 }
 
+    // one JVM for the whole run: java -jar <jar> serve <port>, then every call is a
+    // POST /<functionName> on localhost, answered in JSON by the warm process
+    async startServer(port = 8547) {
+
+        if (this.server) return this.port;
+
+        return new Promise((resolve, reject) => {
+
+            this.server = spawn("java", ['-jar', this.jarFile, 'serve', port.toString()]);
+            this.port = port;
+
+            this.server.stdout.on('data', (data) => {
+                if (data.toString().includes('Listening')) resolve(port);
+            });
+
+            this.server.stderr.on('data', (data) => {
+                this.stdErrFunction(data.toString());
+            });
+
+            // no java on the path
+            this.server.on('error', (error) => {
+                this.server = null;
+                reject(error);
+            });
+
+            this.server.on('close', (code) => {
+                this.server = null;
+                reject(new Error(`Java server exited with code ${code}`));
+            });
+        });
+    }
+
+    stopServer() {
+        if (this.server) this.server.kill();
+        this.server = null;
+    }
+
+    async request(functionName, body, query = '') {
+
+        return new Promise((resolve, reject) => {
+
+            const req = http.request({
+                host: '127.0.0.1',
+                port: this.port,
+                method: 'POST',
+                path: '/' + functionName + query,
+                headers: { 'Content-Type': 'application/json' }
+            }, (res) => {
+
+                let output = '';
+
+                res.on('data', (chunk) => { output += chunk; });
+
+                res.on('end', () => {
+                    if (res.statusCode === 200) {
+                        resolve(JSON.parse(output));
+                    } else {
+                        reject(new Error(`Java server answered ${res.statusCode}: ${output}`));
+                    }
+                });
+            });
+
+            req.on('error', reject);
+            req.end(body);
+        });
+    }
+
     async execute(functionName, jsonArg) {
     
     return new Promise((resolve, reject) => {
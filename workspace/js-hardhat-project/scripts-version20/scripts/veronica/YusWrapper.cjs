@@ -25,10 +25,16 @@ class YusWrapper extends JavaWrapper {
 
         } 
 
+        // the warm server when it runs, a JVM per call otherwise
+        if (this.server) {
+            return await super.request(this.functionName, JSON.stringify(args.poolList))
+        }
+
+        // the CLI prints the same JSON object the server answers
         const routes = await super.execute(this.functionName, 
                                            JSON.stringify(args.poolList))
 
-        return routes 
+        return JSON.parse(routes) 
 
     }
 
@@ -1,10 +1,10 @@
 
-import java.util.HashMap;
+import java.util.Arrays;
 
 import com.calypso.general.HelloWorld;
-import com.calypso.uniswap.UniswapMarketsDeparser;
-import com.calypso.uniswap.UniswapPool;
-import com.calypso.algorithms.yuzhang.*;
+import com.calypso.uniswap.StringPoolSource;
+import com.calypso.bots.CalypsoServer;
+import com.calypso.bots.SearchSession;
 
 public class CalypsoProxy {
 
@@ -20,6 +20,10 @@ public class CalypsoProxy {
     
     java -jar CalypsoProxy.jar <arg0> <arg1>
     
+    or, one JVM for the whole run, the methods over localhost HTTP (see CalypsoServer)
+    
+    java -jar CalypsoProxy.jar serve [port]
+    
     */
    
     // note, it is important, to add a blank line at the end of the Manigest file
@@ -32,6 +36,12 @@ public class CalypsoProxy {
     public static void main(String[] args) throws Exception {
 
         String methodName = args[0];
+
+        if (methodName.equals("serve")) {
+            CalypsoServer.main((args.length > 1) ? new String[] { args[1] } : new String[0]);
+            return;
+        }
+
         String jsonArg = args[1]; // change this to array...
 
         switch (methodName) {
@@ -49,13 +59,10 @@ public class CalypsoProxy {
         
             case "Yus" :
                 
-             
-                HashMap<String, UniswapPool> poolList = UniswapMarketsDeparser.init(jsonArg);
-		       
-                UniswapPool[] poolsArray = poolList.values().toArray(UniswapPool[]::new);
+                // the same search and the same JSON line as POST /Yus on the server
+                SearchSession session = new SearchSession(Arrays.asList(CalypsoServer.DEFAULT_TOKEN));
                 
-                YuZhangMethod yus = new YuZhangMethod();
-                yus.findOpportunities( poolsArray , "0xC02aaA39b223FE8D0A0e5C4F27eAD9083C756Cc2", "UNI");
+                System.out.println(session.apply(1, new StringPoolSource(jsonArg).load()));
                 
             break;
 
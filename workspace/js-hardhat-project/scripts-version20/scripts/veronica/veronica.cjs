@@ -42,6 +42,14 @@ class Veronica {
         
         this.uniswapQuery = await ContractUniswapQuery.getInstanceAtHardhat();
         this.yus = new YusWrapper()
+
+        // one warm JVM for every search of the run, a JVM per call if it does not come up
+        try {
+          await this.yus.startServer()
+        } catch (error) {
+          console.warn(`Java server not started, calling the CLI: ${error.message}`)
+        }
+
         return this; // Return instance for chaining
     }
 
@@ -103,7 +111,11 @@ class Veronica {
                                             jsonArgs.currency, 
                                             jsonArgs.minProfit) 
 
-      console.log(`The answer for routes is: ${routes}`)
+      console.log(`The answer for routes is: ${JSON.stringify(routes)}`)
+    }
+
+    close() {
+      if (this.yus) this.yus.stopServer()
     }
 }
 
@@ -119,7 +131,12 @@ async function main() {
     }
 
     const veronica = await Veronica.getInstanceHardhat();
-    await veronica.execute(jsonArgs);
+
+    try {
+      await veronica.execute(jsonArgs);
+    } finally {
+      veronica.close();
+    }
 }
 
 // Execute and handle errors